@@ -0,0 +1,52 @@
+// Mixed read/write load against the users API, used to compare the virtual-thread and
+// platform-thread execution modes:
+//
+//   VIRTUAL_THREADS=true  SPRING_PROFILES_ACTIVE=postgres ./gradlew bootRun
+//   k6 run --summary-export=virtual.json load-test/users.js
+//   VIRTUAL_THREADS=false SPRING_PROFILES_ACTIVE=postgres ./gradlew bootRun
+//   k6 run --summary-export=platform.json load-test/users.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api/v1/users';
+const USERS = Number(__ENV.USERS || 10000);
+
+export const options = {
+  scenarios: {
+    ramp: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: 500 },
+        { duration: '1m', target: 2000 },
+        { duration: '30s', target: 0 },
+      ],
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  const batch = [];
+  for (let i = 0; i < USERS; i++) {
+    batch.push(JSON.stringify({ name: `load-${i}`, email: `load-${i}@example.com`, roles: ['USER'] }));
+  }
+  http.post(`${BASE_URL}/bulk?upsert=true`, batch.join('\n'),
+    { headers: { 'Content-Type': 'application/x-ndjson' }, timeout: '120s' });
+}
+
+export default function () {
+  const i = Math.floor(Math.random() * USERS);
+  if (Math.random() < 0.9) {
+    const response = http.get(`${BASE_URL}/load-${i}@example.com`);
+    check(response, { 'read ok': (r) => r.status === 200 });
+  } else {
+    const response = http.put(BASE_URL,
+      JSON.stringify({ name: `load-${i}`, email: `load-${i}@example.com`, roles: ['USER', 'ADMIN'] }),
+      { headers: { 'Content-Type': 'application/json' } });
+    check(response, { 'write ok': (r) => r.status === 200 });
+  }
+}
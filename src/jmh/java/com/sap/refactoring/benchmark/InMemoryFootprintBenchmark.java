@@ -0,0 +1,126 @@
+package com.sap.refactoring.benchmark;
+
+import static com.sap.refactoring.benchmark.UserFixtures.email;
+import static com.sap.refactoring.benchmark.UserFixtures.name;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Retained heap of the in-memory store, measured as the heap in use after full collections once
+ * {@code size} users are loaded, minus the heap in use before. The footprint is reported as the
+ * {@code bytes} and {@code bytesPerUser} secondary results; the primary score is only the load
+ * time. With {@code roleLists=copied} the
+ * shared role dictionary is filled up front, so every record keeps a private copy of its roles as
+ * it did before the dictionary existed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(1)
+public class InMemoryFootprintBenchmark {
+
+  /**
+   * Role combinations in the proportions of a typical user base: mostly plain users.
+   */
+  private static final List<List<String>> ROLE_MIX = List.of(
+      List.of("USER"), List.of("USER"), List.of("USER"), List.of("USER"), List.of("USER"),
+      List.of("USER"), List.of("USER"), List.of("USER", "ADMIN"), List.of("USER", "AUDITOR"),
+      List.of("ADMIN"));
+
+  /**
+   * More distinct role combinations than the role dictionary keeps.
+   */
+  private static final int DICTIONARY_FILL = 5000;
+
+  @Param({"1000000"})
+  private int size;
+
+  @Param({"shared", "copied"})
+  private String roleLists;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+
+    public long bytes;
+    public long bytesPerUser;
+  }
+
+  /**
+   * Each parameter combination runs in its own fork, so a filled dictionary never leaks into a
+   * {@code shared} run. The filler store is dropped, and the dictionary is static, so its lists
+   * are not part of the measured graph.
+   */
+  @Setup(Level.Trial)
+  public void fillRoleDictionary() {
+    if (!"copied".equals(roleLists)) {
+      return;
+    }
+    InMemoryUserRepository filler = new InMemoryUserRepository();
+    for (int i = 0; i < DICTIONARY_FILL; i++) {
+      filler.insert(User.builder()
+          .name("filler-" + i)
+          .email("filler-" + i + "@example.com")
+          .roles(List.of("FILLER-" + i))
+          .build());
+    }
+  }
+
+  @Benchmark
+  public InMemoryUserRepository load(Footprint footprint) {
+    long before = usedHeapAfterGc();
+    InMemoryUserRepository repository = new InMemoryUserRepository();
+    for (int i = 0; i < size; i++) {
+      repository.insert(User.builder()
+          .name(name(i))
+          .email(email(i))
+          .roles(decodedRoles(i))
+          .build());
+    }
+    footprint.bytes = usedHeapAfterGc() - before;
+    footprint.bytesPerUser = footprint.bytes / size;
+    return repository;
+  }
+
+  /**
+   * Heap in use once full collections have cleared the garbage. JOL cannot walk the store's
+   * graph: its index comparators are lambdas, whose hidden classes have no field offsets.
+   */
+  private static long usedHeapAfterGc() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Fresh list and string instances per user, as a JSON or CSV decoder hands them over.
+   */
+  private static List<String> decodedRoles(int i) {
+    List<String> roles = new ArrayList<>();
+    for (String role : ROLE_MIX.get(i % ROLE_MIX.size())) {
+      roles.add(new String(role));
+    }
+    return roles;
+  }
+}
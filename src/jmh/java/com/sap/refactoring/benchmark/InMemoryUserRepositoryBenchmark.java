@@ -0,0 +1,82 @@
+package com.sap.refactoring.benchmark;
+
+import static com.sap.refactoring.benchmark.UserFixtures.PAGE_SIZE;
+import static com.sap.refactoring.benchmark.UserFixtures.email;
+import static com.sap.refactoring.benchmark.UserFixtures.name;
+import static com.sap.refactoring.benchmark.UserFixtures.user;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Single-threaded cost of each repository operation against a store of {@code size} users.
+ * Writes target existing keys so the store size stays constant across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InMemoryUserRepositoryBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  private InMemoryUserRepository repository;
+
+  @Setup(Level.Trial)
+  public void populate() {
+    repository = new InMemoryUserRepository();
+    for (int i = 0; i < size; i++) {
+      repository.insert(user(i));
+    }
+  }
+
+  @Benchmark
+  public User save(KeyState keys) {
+    return repository.save(user(keys.next(size)));
+  }
+
+  @Benchmark
+  public Optional<User> findByEmail(KeyState keys) {
+    return repository.findByEmail(email(keys.next(size)));
+  }
+
+  @Benchmark
+  public boolean existsByEmail(KeyState keys) {
+    return repository.existsByEmail(email(keys.next(size)));
+  }
+
+  @Benchmark
+  public boolean existsByName(KeyState keys) {
+    return repository.existsByName(name(keys.next(size)));
+  }
+
+  /**
+   * Deletes a user and inserts it back, so the measured time covers one delete and one insert.
+   */
+  @Benchmark
+  public User deleteByEmail(KeyState keys) {
+    int key = keys.next(size);
+    repository.deleteByEmail(email(key));
+    return repository.insert(user(key));
+  }
+
+  @Benchmark
+  public Page<User> findAllPage(KeyState keys) {
+    return repository.findAll(PageRequest.of(keys.next(size / PAGE_SIZE), PAGE_SIZE,
+        Sort.by("name")));
+  }
+}
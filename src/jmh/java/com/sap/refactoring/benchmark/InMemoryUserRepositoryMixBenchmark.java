@@ -0,0 +1,71 @@
+package com.sap.refactoring.benchmark;
+
+import static com.sap.refactoring.benchmark.UserFixtures.email;
+import static com.sap.refactoring.benchmark.UserFixtures.user;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Concurrent read/write mixes over one shared store. Each group runs readers and writers side by
+ * side; the thread counts set the ratio (19:1 for 95/5, 4:4 for 50/50).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InMemoryUserRepositoryMixBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  private InMemoryUserRepository repository;
+
+  @Setup(Level.Trial)
+  public void populate() {
+    repository = new InMemoryUserRepository();
+    for (int i = 0; i < size; i++) {
+      repository.insert(user(i));
+    }
+  }
+
+  @Benchmark
+  @Group("readHeavy")
+  @GroupThreads(19)
+  public Optional<User> readHeavyRead(KeyState keys) {
+    return repository.findByEmail(email(keys.next(size)));
+  }
+
+  @Benchmark
+  @Group("readHeavy")
+  @GroupThreads(1)
+  public User readHeavyWrite(KeyState keys) {
+    return repository.save(user(keys.next(size)));
+  }
+
+  @Benchmark
+  @Group("balanced")
+  @GroupThreads(4)
+  public Optional<User> balancedRead(KeyState keys) {
+    return repository.findByEmail(email(keys.next(size)));
+  }
+
+  @Benchmark
+  @Group("balanced")
+  @GroupThreads(4)
+  public User balancedWrite(KeyState keys) {
+    return repository.save(user(keys.next(size)));
+  }
+}
@@ -0,0 +1,83 @@
+package com.sap.refactoring.benchmark;
+
+import static com.sap.refactoring.benchmark.UserFixtures.email;
+import static com.sap.refactoring.benchmark.UserFixtures.name;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to a serving in-memory store of {@code size} users: warm-loading a snapshot file against
+ * inserting the same users one by one, as seeding through the service does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InMemoryWarmLoadBenchmark {
+
+  @Param({"1000000"})
+  private int size;
+
+  private List<User> users;
+  private Path snapshot;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    users = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      users.add(User.builder()
+          .name(name(i))
+          .email(email(i))
+          .roles(new ArrayList<>(i % 10 == 0 ? List.of("USER", "ADMIN") : List.of("USER")))
+          .build());
+    }
+    InMemoryUserRepository repository = new InMemoryUserRepository();
+    users.forEach(repository::insert);
+    snapshot = Files.createTempFile("users", ".snapshot");
+    try (OutputStream output = Files.newOutputStream(snapshot)) {
+      repository.writeSnapshot(output);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(snapshot);
+  }
+
+  @Benchmark
+  public InMemoryUserRepository warmLoad() throws IOException {
+    InMemoryUserRepository repository = new InMemoryUserRepository();
+    repository.load(snapshot);
+    return repository;
+  }
+
+  @Benchmark
+  public InMemoryUserRepository insertOneByOne() {
+    InMemoryUserRepository repository = new InMemoryUserRepository();
+    users.forEach(repository::insert);
+    return repository;
+  }
+}
@@ -0,0 +1,18 @@
+package com.sap.refactoring.benchmark;
+
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-thread source of uniformly distributed user keys.
+ */
+@State(Scope.Thread)
+public class KeyState {
+
+  private final SplittableRandom random = new SplittableRandom();
+
+  int next(int bound) {
+    return random.nextInt(bound);
+  }
+}
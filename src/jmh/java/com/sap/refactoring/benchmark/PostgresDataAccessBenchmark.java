@@ -0,0 +1,111 @@
+package com.sap.refactoring.benchmark;
+
+import static com.sap.refactoring.benchmark.UserFixtures.email;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Create and read throughput of the {@code postgres} profile with its tuned pool, statement cache
+ * and batching settings against a baseline that reverts them to the driver and Hibernate defaults.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PostgresDataAccessBenchmark {
+
+  private static final int SIZE = 100_000;
+  private static final int BATCH = 100;
+
+  private static final String[] BASELINE = {
+      "spring.datasource.hikari.maximum-pool-size=10",
+      "spring.datasource.hikari.minimum-idle=10",
+      "spring.datasource.hikari.data-source-properties.prepareThreshold=5",
+      "spring.datasource.hikari.data-source-properties.preparedStatementCacheQueries=256",
+      "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=false",
+      "spring.jpa.properties.hibernate.jdbc.batch_size=1",
+      "spring.jpa.properties.hibernate.order_inserts=false",
+      "spring.jpa.properties.hibernate.order_updates=false"
+  };
+
+  @Param({"baseline", "tuned"})
+  private String settings;
+
+  private final AtomicInteger sequence = new AtomicInteger();
+  private PostgresFixture postgres;
+  private UserRepository repository;
+  private TransactionTemplate transactions;
+  private JdbcTemplate jdbcTemplate;
+
+  @Setup(Level.Trial)
+  public void start() {
+    postgres = "baseline".equals(settings)
+        ? PostgresFixture.start(SIZE, BASELINE)
+        : PostgresFixture.start(SIZE);
+    repository = postgres.getBean(UserRepository.class);
+    transactions = new TransactionTemplate(postgres.getBean(PlatformTransactionManager.class));
+    jdbcTemplate = postgres.getBean(JdbcTemplate.class);
+  }
+
+  /**
+   * Drops the users created during the iteration, so every iteration inserts into the same table.
+   */
+  @TearDown(Level.Iteration)
+  public void removeCreated() {
+    jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'bench-%'");
+    jdbcTemplate.execute("VACUUM ANALYZE users");
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    postgres.close();
+  }
+
+  /**
+   * Creates {@value #BATCH} users in one transaction, which is how the bulk endpoint writes.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public List<User> createBatch() {
+    List<User> users = new ArrayList<>(BATCH);
+    for (int i = 0; i < BATCH; i++) {
+      int key = sequence.getAndIncrement();
+      users.add(User.builder()
+          .name("bench-" + key)
+          .email("bench-" + key + "@example.com")
+          .roles(new ArrayList<>(List.of("USER")))
+          .build());
+    }
+    return transactions.execute(status -> repository.saveAll(users));
+  }
+
+  /**
+   * Concurrent point reads; with more threads than pooled connections this also measures how the
+   * pool hands out connections under contention.
+   */
+  @Benchmark
+  @Threads(32)
+  public Optional<User> findByEmail(KeyState keys) {
+    return repository.findByEmail(email(keys.next(SIZE)));
+  }
+}
@@ -0,0 +1,63 @@
+package com.sap.refactoring.benchmark;
+
+import com.sap.refactoring.JavaRefactoringTestApplication;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * A throwaway PostgreSQL container plus the application context of the {@code postgres} profile,
+ * seeded with users {@code 0..size-1}.
+ */
+final class PostgresFixture implements AutoCloseable {
+
+  private static final String SEED_USERS = """
+      INSERT INTO users (name, email, roles)
+      SELECT 'user-' || i, 'user-' || i || '@example.com', ARRAY['USER']
+      FROM generate_series(0, ? - 1) i""";
+
+  private final PostgreSQLContainer<?> postgres;
+  private final ConfigurableApplicationContext context;
+
+  private PostgresFixture(PostgreSQLContainer<?> postgres,
+      ConfigurableApplicationContext context) {
+    this.postgres = postgres;
+    this.context = context;
+  }
+
+  static PostgresFixture start(int size, String... properties) {
+    PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+    postgres.start();
+
+    List<String> overrides = new ArrayList<>(List.of(
+        "spring.datasource.url=" + postgres.getJdbcUrl(),
+        "spring.datasource.username=" + postgres.getUsername(),
+        "spring.datasource.password=" + postgres.getPassword()));
+    overrides.addAll(List.of(properties));
+    ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(JavaRefactoringTestApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("postgres")
+            .properties(overrides.toArray(String[]::new))
+            .run();
+
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    jdbcTemplate.update(SEED_USERS, size);
+    jdbcTemplate.execute("ANALYZE users");
+    return new PostgresFixture(postgres, context);
+  }
+
+  <T> T getBean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  @Override
+  public void close() {
+    context.close();
+    postgres.stop();
+  }
+}
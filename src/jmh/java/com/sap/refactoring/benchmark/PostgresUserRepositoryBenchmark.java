@@ -0,0 +1,102 @@
+package com.sap.refactoring.benchmark;
+
+import static com.sap.refactoring.benchmark.UserFixtures.PAGE_SIZE;
+import static com.sap.refactoring.benchmark.UserFixtures.email;
+import static com.sap.refactoring.benchmark.UserFixtures.name;
+import static com.sap.refactoring.benchmark.UserFixtures.user;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Same operations as {@link InMemoryUserRepositoryBenchmark} through the JPA repository of the
+ * {@code postgres} profile, against a throwaway PostgreSQL container. Writes run in their own
+ * transaction, as they would behind the service layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostgresUserRepositoryBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  private PostgresFixture postgres;
+  private UserRepository repository;
+  private TransactionTemplate transactions;
+
+  @Setup(Level.Trial)
+  public void start() {
+    postgres = PostgresFixture.start(size);
+    repository = postgres.getBean(UserRepository.class);
+    transactions = new TransactionTemplate(postgres.getBean(PlatformTransactionManager.class));
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    postgres.close();
+  }
+
+  /**
+   * Loads a user and writes it back with new roles, which is how the service updates a user.
+   */
+  @Benchmark
+  public User save(KeyState keys) {
+    String email = email(keys.next(size));
+    return transactions.execute(status -> {
+      User user = repository.findByEmail(email).orElseThrow();
+      user.setRoles(new ArrayList<>(List.of("USER", "ADMIN")));
+      return repository.save(user);
+    });
+  }
+
+  @Benchmark
+  public Optional<User> findByEmail(KeyState keys) {
+    return repository.findByEmail(email(keys.next(size)));
+  }
+
+  @Benchmark
+  public boolean existsByEmail(KeyState keys) {
+    return repository.existsByEmail(email(keys.next(size)));
+  }
+
+  @Benchmark
+  public boolean existsByName(KeyState keys) {
+    return repository.existsByName(name(keys.next(size)));
+  }
+
+  /**
+   * Deletes a user and inserts it back, so the measured time covers one delete and one insert.
+   */
+  @Benchmark
+  public User deleteByEmail(KeyState keys) {
+    int key = keys.next(size);
+    transactions.executeWithoutResult(status -> repository.deleteByEmail(email(key)));
+    return transactions.execute(status -> repository.insert(user(key)));
+  }
+
+  @Benchmark
+  public Page<User> findAllPage(KeyState keys) {
+    return repository.findAll(PageRequest.of(keys.next(size / PAGE_SIZE), PAGE_SIZE,
+        Sort.by("name")));
+  }
+}
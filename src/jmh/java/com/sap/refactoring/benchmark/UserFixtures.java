@@ -0,0 +1,33 @@
+package com.sap.refactoring.benchmark;
+
+import com.sap.refactoring.entity.User;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic users shared by all benchmarks: user {@code i} always has the same name and email,
+ * so a key picked at random is known to exist in a store populated with {@code 0..size-1}.
+ */
+final class UserFixtures {
+
+  static final int PAGE_SIZE = 20;
+
+  private UserFixtures() {
+  }
+
+  static String name(int i) {
+    return "user-" + i;
+  }
+
+  static String email(int i) {
+    return "user-" + i + "@example.com";
+  }
+
+  static User user(int i) {
+    return User.builder()
+        .name(name(i))
+        .email(email(i))
+        .roles(new ArrayList<>(List.of("USER")))
+        .build();
+  }
+}
@@ -0,0 +1,58 @@
+package com.sap.refactoring.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sap.refactoring.dto.response.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Optional;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(UserCacheProperties.class)
+public class CacheConfig {
+
+  public static final String USERS_BY_EMAIL_CACHE = "users.by-email";
+
+  /**
+   * Responses keyed by email. An empty value records a lookup that found nothing and lives for
+   * the shorter negative TTL. The cache is asynchronous so that loads never run under its map
+   * lock.
+   */
+  @Bean
+  public AsyncCache<String, Optional<UserResponse>> userResponseCache(
+      UserCacheProperties properties, MeterRegistry meterRegistry) {
+    AsyncCache<String, Optional<UserResponse>> cache = Caffeine.newBuilder()
+        .maximumSize(properties.maximumSize())
+        .expireAfter(new Expiry<String, Optional<UserResponse>>() {
+          @Override
+          public long expireAfterCreate(String email, Optional<UserResponse> user,
+              long currentTime) {
+            return ttl(user);
+          }
+
+          @Override
+          public long expireAfterUpdate(String email, Optional<UserResponse> user,
+              long currentTime, long currentDuration) {
+            return ttl(user);
+          }
+
+          @Override
+          public long expireAfterRead(String email, Optional<UserResponse> user,
+              long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+
+          private long ttl(Optional<UserResponse> user) {
+            return (user.isPresent() ? properties.ttl() : properties.negativeTtl()).toNanos();
+          }
+        })
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), USERS_BY_EMAIL_CACHE);
+    return cache;
+  }
+}
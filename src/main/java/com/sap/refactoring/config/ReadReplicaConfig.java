@@ -0,0 +1,87 @@
+package com.sap.refactoring.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the auto-configured data source of the {@code postgres} profile with one that routes
+ * read-only transactions to read replicas. Only active when replica URLs are configured; the
+ * primary pool is built from the usual {@code spring.datasource} settings and keeps serving
+ * writes, migrations and non-transactional access.
+ */
+@Configuration
+@Profile("postgres")
+@ConditionalOnProperty(prefix = "app.datasource.replicas", name = "urls")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+  @Bean
+  @FlywayDataSource
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+  }
+
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource,
+      ReadReplicaProperties properties, MeterRegistry meterRegistry) {
+    List<HikariDataSource> replicas = new ArrayList<>();
+    for (String url : properties.urls()) {
+      replicas.add(replica(primaryDataSource, properties, url, replicas.size(), meterRegistry));
+    }
+    return new ReplicaLagMonitor(replicas, properties.maxLag(), properties.lagCheckInterval());
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+      ReplicaLagMonitor replicaLagMonitor, ReadReplicaProperties properties) {
+    return new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor.replicas(),
+        replicaLagMonitor, properties.stickiness());
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+
+  /**
+   * A pool for one replica with the settings of the primary pool, including its driver properties,
+   * and its own metrics under the pool name {@code <primary>-replica-<n>}.
+   */
+  private static HikariDataSource replica(HikariDataSource primary,
+      ReadReplicaProperties properties, String url, int index, MeterRegistry meterRegistry) {
+    HikariConfig config = new HikariConfig();
+    primary.copyStateTo(config);
+    config.setJdbcUrl(url);
+    config.setPoolName(primary.getPoolName() + "-replica-" + index);
+    // an unreachable replica must not fail startup; the lag monitor keeps it out of rotation
+    config.setInitializationFailTimeout(-1);
+    if (properties.username() != null) {
+      config.setUsername(properties.username());
+    }
+    if (properties.password() != null) {
+      config.setPassword(properties.password());
+    }
+    config.setMetricRegistry(null);
+    config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    return new HikariDataSource(config);
+  }
+}
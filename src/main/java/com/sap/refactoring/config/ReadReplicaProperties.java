@@ -0,0 +1,17 @@
+package com.sap.refactoring.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Read replicas of the {@code postgres} profile. Replica pools copy the primary pool settings;
+ * {@code username} and {@code password} default to the primary credentials when unset.
+ * {@code stickiness} keeps reads on the primary for that long after a write commits (zero
+ * disables it), and a replica lagging more than {@code maxLag} is skipped until it catches up.
+ */
+@ConfigurationProperties(prefix = "app.datasource.replicas")
+public record ReadReplicaProperties(List<String> urls, String username, String password,
+    Duration stickiness, Duration maxLag, Duration lagCheckInterval) {
+
+}
@@ -0,0 +1,100 @@
+package com.sap.refactoring.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Polls the replay lag of every replica in the background. A replica that lags more than the
+ * allowed maximum, or cannot be reached, is reported unhealthy until a later check succeeds.
+ * A server that is not in recovery (e.g. a standalone database used as a replica in tests) has
+ * no lag, and neither has a standby that has replayed everything it received. The monitor owns the
+ * replica pools and closes them with itself.
+ */
+public class ReplicaLagMonitor implements MeterBinder, AutoCloseable {
+
+  private static final long UNREACHABLE = Long.MAX_VALUE;
+
+  private static final String LAG_MILLIS = """
+      SELECT CASE
+               WHEN NOT pg_is_in_recovery()
+                 OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+               ELSE COALESCE(
+                 EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+             END::bigint""";
+
+  private final List<HikariDataSource> replicas;
+  private final List<JdbcTemplate> probes;
+  private final long maxLagMillis;
+  private final AtomicLongArray lagMillis;
+  private final ScheduledExecutorService scheduler;
+
+  public ReplicaLagMonitor(List<HikariDataSource> replicas, Duration maxLag,
+      Duration checkInterval) {
+    this.replicas = replicas;
+    this.probes = replicas.stream()
+        .map(ReplicaLagMonitor::probe)
+        .toList();
+    this.maxLagMillis = maxLag.toMillis();
+    this.lagMillis = new AtomicLongArray(replicas.size());
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("replica-lag-monitor").daemon().factory());
+    check();
+    scheduler.scheduleWithFixedDelay(this::check, checkInterval.toMillis(),
+        checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public List<HikariDataSource> replicas() {
+    return replicas;
+  }
+
+  public boolean isHealthy(int replica) {
+    return lagMillis.get(replica) <= maxLagMillis;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (int i = 0; i < replicas.size(); i++) {
+      int replica = i;
+      Gauge.builder("users.datasource.replica.lag", lagMillis,
+              lag -> lag.get(replica) == UNREACHABLE ? Double.NaN : lag.get(replica))
+          .description("Replay lag of a read replica, NaN while it is unreachable")
+          .baseUnit("milliseconds")
+          .tag("replica", replicas.get(replica).getPoolName())
+          .register(registry);
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    replicas.forEach(HikariDataSource::close);
+  }
+
+  private void check() {
+    for (int i = 0; i < probes.size(); i++) {
+      Long lag;
+      try {
+        lag = probes.get(i).queryForObject(LAG_MILLIS, Long.class);
+      } catch (DataAccessException e) {
+        lag = null;
+      }
+      lagMillis.set(i, lag == null ? UNREACHABLE : lag);
+    }
+  }
+
+  private static JdbcTemplate probe(HikariDataSource replica) {
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+    jdbcTemplate.setQueryTimeout(2);
+    return jdbcTemplate;
+  }
+}
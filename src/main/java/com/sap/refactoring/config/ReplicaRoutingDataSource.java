@@ -0,0 +1,86 @@
+package com.sap.refactoring.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to a healthy replica, picked round-robin, and
+ * everything else to the primary. Reads fall back to the primary when every replica lags, and for
+ * the stickiness window after any write commits, so a client reads its own writes. The window is
+ * instance-wide: it keeps all reads served by this instance on the primary, not only those of the
+ * writing client.
+ *
+ * <p>The routing decision reads the transaction state, so the data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which defers fetching
+ * the connection until the transaction has been set up.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  private static final String PRIMARY = "primary";
+
+  private final int replicaCount;
+  private final ReplicaLagMonitor lagMonitor;
+  private final long stickinessNanos;
+  private final AtomicInteger next = new AtomicInteger();
+  private final AtomicLong lastWriteNanos = new AtomicLong();
+  private volatile boolean written;
+
+  public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+      ReplicaLagMonitor lagMonitor, Duration stickiness) {
+    this.replicaCount = replicas.size();
+    this.lagMonitor = lagMonitor;
+    this.stickinessNanos = stickiness.toNanos();
+
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    for (int i = 0; i < replicas.size(); i++) {
+      targets.put(i, replicas.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      trackCommit();
+      return PRIMARY;
+    }
+    if (withinStickiness()) {
+      return PRIMARY;
+    }
+    int start = Math.floorMod(next.getAndIncrement(), replicaCount);
+    for (int i = 0; i < replicaCount; i++) {
+      int replica = (start + i) % replicaCount;
+      if (lagMonitor.isHealthy(replica)) {
+        return replica;
+      }
+    }
+    return PRIMARY;
+  }
+
+  private void trackCommit() {
+    if (stickinessNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          lastWriteNanos.set(System.nanoTime());
+          written = true;
+        }
+      });
+    }
+  }
+
+  private boolean withinStickiness() {
+    return written && System.nanoTime() - lastWriteNanos.get() < stickinessNanos;
+  }
+}
@@ -0,0 +1,9 @@
+package com.sap.refactoring.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.cache.users")
+public record UserCacheProperties(long maximumSize, Duration ttl, Duration negativeTtl) {
+
+}
@@ -0,0 +1,40 @@
+package com.sap.refactoring.config;
+
+import com.sap.refactoring.repository.UserChangeLog;
+import com.sap.refactoring.repository.impl.InMemoryUserChangeLog;
+import com.sap.refactoring.repository.impl.PostgresUserChangeLog;
+import com.sap.refactoring.repository.impl.UserChangeRelay;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(UserChangeProperties.class)
+public class UserChangeConfig {
+
+  @Bean
+  @Profile({"in_memory", "off_heap"})
+  public UserChangeLog inMemoryUserChangeLog(UserChangeProperties properties) {
+    return new InMemoryUserChangeLog(properties.capacity());
+  }
+
+  @Bean
+  @Profile("postgres")
+  public UserChangeLog postgresUserChangeLog(JdbcTemplate jdbcTemplate,
+      EntityManager entityManager, UserChangeRelay userChangeRelay,
+      UserChangeProperties properties) {
+    return new PostgresUserChangeLog(jdbcTemplate, entityManager, userChangeRelay,
+        properties.pollInterval());
+  }
+
+  @Bean
+  @Profile("postgres")
+  public UserChangeRelay userChangeRelay(JdbcTemplate jdbcTemplate,
+      UserChangeProperties properties) {
+    return new UserChangeRelay(jdbcTemplate, properties.pollInterval(), properties.capacity());
+  }
+}
@@ -0,0 +1,14 @@
+package com.sap.refactoring.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Change feed settings: the latest {@code capacity} changes are kept, in a ring buffer by the
+ * in-process stores and in the outbox on Postgres. On Postgres a waiting reader polls the outbox
+ * every {@code pollInterval}, which is also the interval of the background publish pass.
+ */
+@ConfigurationProperties(prefix = "app.changes")
+public record UserChangeProperties(int capacity, Duration pollInterval) {
+
+}
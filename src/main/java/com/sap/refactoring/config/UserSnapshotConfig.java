@@ -0,0 +1,33 @@
+package com.sap.refactoring.config;
+
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Warm-loads the in-memory store from {@code app.store.snapshot.warm-load} while the context
+ * starts, so the instance only accepts requests once the users are loaded. A store that already
+ * recovered users from its journal is left as it is.
+ */
+@Configuration
+@Profile("in_memory")
+@ConditionalOnProperty(prefix = "app.store.snapshot", name = "warm-load")
+@EnableConfigurationProperties(UserSnapshotProperties.class)
+@RequiredArgsConstructor
+public class UserSnapshotConfig implements InitializingBean {
+
+  private final InMemoryUserRepository userRepository;
+  private final UserSnapshotProperties properties;
+
+  @Override
+  public void afterPropertiesSet() throws IOException {
+    if (userRepository.size() == 0) {
+      userRepository.load(properties.warmLoad());
+    }
+  }
+}
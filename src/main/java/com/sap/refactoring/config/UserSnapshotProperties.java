@@ -0,0 +1,12 @@
+package com.sap.refactoring.config;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Snapshot file the {@code in_memory} store is warm-loaded from at startup, if any.
+ */
+@ConfigurationProperties(prefix = "app.store.snapshot")
+public record UserSnapshotProperties(Path warmLoad) {
+
+}
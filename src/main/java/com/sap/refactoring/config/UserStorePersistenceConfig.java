@@ -0,0 +1,25 @@
+package com.sap.refactoring.config;
+
+import com.sap.refactoring.repository.impl.UserJournal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Makes the in-memory store durable when {@code app.store.persistence.enabled} is set. The journal
+ * is picked up by the repository, which recovers from it before serving anything.
+ */
+@Configuration
+@Profile("in_memory")
+@ConditionalOnProperty(prefix = "app.store.persistence", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(UserStorePersistenceProperties.class)
+public class UserStorePersistenceConfig {
+
+  @Bean
+  public UserJournal userJournal(UserStorePersistenceProperties properties) {
+    return new UserJournal(properties.directory(), properties.fsync(),
+        properties.fsyncInterval(), properties.snapshotInterval());
+  }
+}
@@ -0,0 +1,18 @@
+package com.sap.refactoring.config;
+
+import com.sap.refactoring.repository.impl.UserJournal;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Durability of the {@code in_memory} profile. Writes are logged under {@code directory} and
+ * acknowledged according to {@code fsync}; {@code fsyncInterval} bounds how long an acknowledged
+ * write may stay unforced under the {@code interval} policy, and the log is compacted into a
+ * snapshot every {@code snapshotInterval}.
+ */
+@ConfigurationProperties(prefix = "app.store.persistence")
+public record UserStorePersistenceProperties(boolean enabled, Path directory,
+    UserJournal.FsyncPolicy fsync, Duration fsyncInterval, Duration snapshotInterval) {
+
+}
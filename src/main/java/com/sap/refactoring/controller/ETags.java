@@ -0,0 +1,67 @@
+package com.sap.refactoring.controller;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.exception.VersionMismatchException;
+import com.sap.refactoring.util.Constants;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.http.ETag;
+
+/**
+ * The ETag of a user is its version followed by a hash of its content, so a user deleted and
+ * created again at the same version does not match a copy of the old one. The ETag of a listing
+ * is the version of the whole collection.
+ */
+final class ETags {
+
+  private static final char SEPARATOR = '-';
+
+  private ETags() {
+  }
+
+  static String of(UserResponse user) {
+    return String.valueOf(user.version()) + SEPARATOR
+        + Integer.toHexString(Objects.hash(user.name(), user.email(), user.roles()));
+  }
+
+  /**
+   * Whether an {@code If-None-Match} header names {@code tag}, using the weak comparison that
+   * header calls for.
+   */
+  static boolean matches(String ifNoneMatch, String tag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (ETag candidate : ETag.parse(ifNoneMatch)) {
+      if (candidate.isWildcard() || candidate.tag().equals(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A missing or wildcard {@code If-Match} makes an update unconditional; a tag that does not
+   * start with a version can never match.
+   */
+  static Long expectedVersion(String email, String ifMatch) {
+    if (ifMatch == null) {
+      return null;
+    }
+    List<ETag> tags = ETag.parse(ifMatch);
+    if (tags.size() == 1 && tags.get(0).isWildcard()) {
+      return null;
+    }
+    try {
+      if (tags.size() == 1 && !tags.get(0).weak()) {
+        String tag = tags.get(0).tag();
+        int separator = tag.indexOf(SEPARATOR);
+        return Long.valueOf(separator < 0 ? tag : tag.substring(0, separator));
+      }
+    } catch (NumberFormatException ignored) {
+      // falls through to the mismatch below
+    }
+    throw new VersionMismatchException(
+        String.format(Constants.USER_VERSION_MISMATCH_ERR_MSG, email, ifMatch));
+  }
+}
@@ -0,0 +1,82 @@
+package com.sap.refactoring.controller;
+
+import com.sap.refactoring.dto.request.CursorPageRequest;
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.CursorPageResponse;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link UserController} for the {@code reactive} profile. Collections are
+ * returned as {@link Flux} and written as rows arrive, so the response applies backpressure all
+ * the way to the database cursor.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/users")
+public class ReactiveUserController {
+
+  private final ReactiveUserService userService;
+
+  @PostMapping
+  public Mono<ResponseEntity<UserResponse>> addUser(@Valid @RequestBody UserRequest request) {
+    return userService.createUser(request)
+        .map(user -> ResponseEntity.status(HttpStatus.CREATED).body(user));
+  }
+
+  @PutMapping
+  public Mono<ResponseEntity<UserResponse>> updateUser(@Valid @RequestBody UserRequest request,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Long expectedVersion = ETags.expectedVersion(request.email(), ifMatch);
+    return userService.updateUser(request, expectedVersion)
+        .map(user -> ResponseEntity.ok().eTag(ETags.of(user)).body(user));
+  }
+
+  @DeleteMapping("/{email}")
+  public Mono<ResponseEntity<Void>> deleteUserByEmail(@PathVariable("email") String email) {
+    return userService.deleteByEmail(email)
+        .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+  }
+
+  @GetMapping
+  public Flux<UserResponse> getUsers() {
+    return userService.exportUsers();
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<UserResponse> exportUsers() {
+    return userService.exportUsers();
+  }
+
+  @GetMapping("/cursor")
+  public Mono<CursorPageResponse<UserResponse>> getUsersByCursor(
+      @Valid CursorPageRequest pageRequest) {
+    return Mono.defer(() -> userService.getAllUsers(pageRequest.toCursor(),
+        pageRequest.toOrder(), pageRequest.size()));
+  }
+
+  @GetMapping("/{email}")
+  public Mono<ResponseEntity<UserResponse>> findUserByEmail(@PathVariable("email") String email) {
+    return userService.getByEmail(email)
+        .map(user -> ResponseEntity.ok().eTag(ETags.of(user)).body(user));
+  }
+}
@@ -1,14 +1,40 @@
 package com.sap.refactoring.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sap.refactoring.dto.request.CursorPageRequest;
 import com.sap.refactoring.dto.request.PageRequest;
+import com.sap.refactoring.dto.request.RoleFilterRequest;
+import com.sap.refactoring.dto.request.UserChangesRequest;
 import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.request.UserSyncRequest;
+import com.sap.refactoring.dto.response.BulkUserResponse;
+import com.sap.refactoring.dto.response.CursorPageResponse;
+import com.sap.refactoring.dto.response.ImportResultResponse;
+import com.sap.refactoring.dto.response.UserChangesResponse;
 import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.dto.response.UserSyncResponse;
+import com.sap.refactoring.service.ImportFormat;
+import com.sap.refactoring.service.UserChangeService;
+import com.sap.refactoring.service.UserImportService;
 import com.sap.refactoring.service.UserService;
+import com.sap.refactoring.service.Versioned;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,24 +42,67 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/users")
 public class UserController {
 
   private final UserService userService;
+  private final UserImportService userImportService;
+  private final UserChangeService userChangeService;
+  private final ObjectMapper objectMapper;
 
   @PostMapping
   public ResponseEntity<UserResponse> addUser(@Valid @RequestBody UserRequest request) {
     return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUser(request));
   }
 
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BulkUserResponse> addUsers(@RequestBody List<UserRequest> requests,
+      @RequestParam(name = "upsert", defaultValue = "false") boolean upsert) {
+    return ResponseEntity.ok(userService.createUsers(requests.iterator(), upsert));
+  }
+
+  /**
+   * The stream is parsed as the service consumes it, one chunk at a time, instead of being read
+   * up front. A malformed line fails the request with 400; on Postgres the transaction rolls
+   * back the chunks written before it.
+   */
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<BulkUserResponse> addUsersFromNdjson(InputStream body,
+      @RequestParam(name = "upsert", defaultValue = "false") boolean upsert) throws IOException {
+    try (MappingIterator<UserRequest> iterator = objectMapper.readerFor(UserRequest.class)
+        .readValues(body)) {
+      return ResponseEntity.ok(userService.createUsers(iterator, upsert));
+    } catch (RuntimeException ex) {
+      // the iterator wraps parse errors; unwrapped, they get the usual 400
+      if (ex.getCause() instanceof JsonProcessingException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  @PostMapping(value = "/import",
+      consumes = {ImportFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public ResponseEntity<ImportResultResponse> importUsers(InputStream body,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+    return ResponseEntity.ok(userImportService.importUsers(body, ImportFormat.of(contentType)));
+  }
+
   @PutMapping
-  public ResponseEntity<UserResponse> updateUser(@Valid @RequestBody UserRequest request) {
-    return ResponseEntity.ok(userService.updateUser(request));
+  public ResponseEntity<UserResponse> updateUser(@Valid @RequestBody UserRequest request,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    UserResponse updated = userService.updateUser(request,
+        ETags.expectedVersion(request.email(), ifMatch));
+    return ResponseEntity.ok().eTag(ETags.of(updated)).body(updated);
   }
 
   @DeleteMapping("/{email}")
@@ -43,18 +112,82 @@ public class UserController {
   }
 
   @GetMapping
-  public ResponseEntity<List<UserResponse>> getUsers() {
-    return ResponseEntity.ok(userService.getAllUsers());
+  public ResponseEntity<List<UserResponse>> getUsers(@Valid RoleFilterRequest roleFilter) {
+    return ResponseEntity.ok(userService.getAllUsers(roleFilter.toFilter()));
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportUsers() {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(this::writeUsersAsNdjson);
   }
 
+  /**
+   * Long poll for changes after a sequence, replacing full rescans with incremental deltas.
+   */
+  @GetMapping("/changes")
+  public ResponseEntity<UserChangesResponse> getChanges(@Valid UserChangesRequest request) {
+    return ResponseEntity.ok(userChangeService.getChanges(request.after(), request.limit(),
+        request.waitDuration()));
+  }
+
+  /**
+   * Users changed since a sync token, so clients keep their copy current without downloading
+   * every user on each sync.
+   */
+  @GetMapping(value = "/changes", params = "since")
+  public ResponseEntity<UserSyncResponse> getChangesSince(@Valid UserSyncRequest request) {
+    return ResponseEntity.ok(userChangeService.getChangesSince(request.toToken(),
+        request.limit()));
+  }
+
+  /**
+   * Pages carry the version of the whole collection as their ETag. A client that sends it back in
+   * {@code If-None-Match} gets 304 before any user is read.
+   */
   @GetMapping(params = {"page", "size", "sortBy", "sortDirection"})
-  public ResponseEntity<Page<UserResponse>> getUsersPaginated(@Valid PageRequest pageRequest) {
-    Page<UserResponse> response = userService.getAllUsers(pageRequest.toPageable());
-    return ResponseEntity.ok(response);
+  public ResponseEntity<Page<UserResponse>> getUsersPaginated(@Valid PageRequest pageRequest,
+      @Valid RoleFilterRequest roleFilter,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    Versioned<Page<UserResponse>> response = userService.getAllUsers(pageRequest.toPageable(),
+        roleFilter.toFilter(), version -> ETags.matches(ifNoneMatch, version));
+    if (response.isUnchanged()) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.version()).build();
+    }
+    return ResponseEntity.ok().eTag(response.version()).body(response.body());
   }
 
+  @GetMapping("/cursor")
+  public ResponseEntity<CursorPageResponse<UserResponse>> getUsersByCursor(
+      @Valid CursorPageRequest pageRequest) {
+    return ResponseEntity.ok(userService.getAllUsers(pageRequest.toCursor(),
+        pageRequest.toOrder(), pageRequest.size()));
+  }
+
+  /**
+   * The user usually comes from the cache; when the ETag matches {@code If-None-Match} the
+   * response is a 304 and the body is never serialized.
+   */
   @GetMapping("/{email}")
   public ResponseEntity<UserResponse> findUserByEmail(@PathVariable("email") String email) {
-    return ResponseEntity.ok(userService.getByEmail(email));
+    UserResponse user = userService.getByEmail(email);
+    return ResponseEntity.ok().eTag(ETags.of(user)).body(user);
+  }
+
+  private void writeUsersAsNdjson(OutputStream outputStream) throws IOException {
+    ObjectWriter writer = objectMapper.writerFor(UserResponse.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+      generator.setRootValueSeparator(null);
+      userService.exportUsers(user -> {
+        try {
+          writer.writeValue(generator, user);
+          generator.writeRaw('\n');
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.sap.refactoring.controller;
+
+import com.sap.refactoring.service.UserSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Exports the in-memory store as a binary snapshot that another instance can warm-load through
+ * {@code app.store.snapshot.warm-load}.
+ */
+@RestController
+@Profile("in_memory")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/users")
+public class UserSnapshotController {
+
+  private final UserSnapshotService userSnapshotService;
+
+  @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportSnapshot() {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename("users.snapshot").build().toString())
+        .body(userSnapshotService::writeSnapshot);
+  }
+}
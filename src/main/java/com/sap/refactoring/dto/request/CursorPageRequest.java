@@ -0,0 +1,35 @@
+package com.sap.refactoring.dto.request;
+
+import com.sap.refactoring.repository.KeysetCursor;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import org.springframework.data.domain.Sort;
+
+public record CursorPageRequest(
+    String cursor,
+
+    @Min(value = 1, message = "Page size must be at least 1")
+    @Max(value = 100, message = "Page size cannot exceed 100")
+    int size,
+
+    @NotBlank(message = "Sort field cannot be blank")
+    @Pattern(regexp = "^(id|email|name)$", message = "Sort field must be one of: id, email, name")
+    String sortBy,
+
+    @NotBlank(message = "Sort direction cannot be blank")
+    @Pattern(regexp = "^(ASC|DESC)$", message = "Sort direction must be either ASC or DESC")
+    String sortDirection
+) {
+
+  public Sort.Order toOrder() {
+    return "DESC".equalsIgnoreCase(sortDirection)
+        ? Sort.Order.desc(sortBy)
+        : Sort.Order.asc(sortBy);
+  }
+
+  public KeysetCursor toCursor() {
+    return cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+  }
+}
@@ -0,0 +1,24 @@
+package com.sap.refactoring.dto.request;
+
+import com.sap.refactoring.repository.RoleFilter;
+import jakarta.validation.constraints.Pattern;
+import java.util.List;
+import java.util.Set;
+
+public record RoleFilterRequest(
+    List<String> role,
+
+    @Pattern(regexp = "^(all|any)$", message = "Role match must be either all or any")
+    String roleMatch
+) {
+
+  /**
+   * Returns {@code null} when no role was requested, so the listing is not filtered.
+   */
+  public RoleFilter toFilter() {
+    if (role == null || role.isEmpty()) {
+      return null;
+    }
+    return new RoleFilter(Set.copyOf(role), !"any".equals(roleMatch));
+  }
+}
@@ -0,0 +1,36 @@
+package com.sap.refactoring.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.time.Duration;
+import org.springframework.web.bind.annotation.BindParam;
+
+/**
+ * Changes after sequence {@code after}, at most {@code limit} of them, waiting up to
+ * {@code waitSeconds} seconds for the first one. Without {@code after} only the current sequence
+ * is returned, to start following from. The wait is bound from the {@code wait} query parameter.
+ */
+public record UserChangesRequest(
+    @PositiveOrZero(message = "Sequence cannot be negative")
+    Long after,
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 1000, message = "Limit cannot exceed 1000")
+    Integer limit,
+
+    @Min(value = 0, message = "Wait cannot be negative")
+    @Max(value = 60, message = "Wait cannot exceed 60 seconds")
+    @BindParam("wait")
+    Integer waitSeconds
+) {
+
+  public UserChangesRequest {
+    limit = limit == null ? 500 : limit;
+    waitSeconds = waitSeconds == null ? 0 : waitSeconds;
+  }
+
+  public Duration waitDuration() {
+    return Duration.ofSeconds(waitSeconds);
+  }
+}
@@ -0,0 +1,26 @@
+package com.sap.refactoring.dto.request;
+
+import com.sap.refactoring.repository.SyncToken;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Users changed since the token {@code since}, at most {@code limit} of them. An empty token
+ * starts a full sync.
+ */
+public record UserSyncRequest(
+    String since,
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 1000, message = "Limit cannot exceed 1000")
+    Integer limit
+) {
+
+  public UserSyncRequest {
+    limit = limit == null ? 500 : limit;
+  }
+
+  public SyncToken toToken() {
+    return since == null || since.isBlank() ? null : SyncToken.decode(since);
+  }
+}
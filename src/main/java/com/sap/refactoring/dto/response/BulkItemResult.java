@@ -0,0 +1,22 @@
+package com.sap.refactoring.dto.response;
+
+public record BulkItemResult(int index, String email, Status status, String message) {
+
+  public enum Status {
+    CREATED,
+    UPDATED,
+    REJECTED
+  }
+
+  public static BulkItemResult created(int index, String email) {
+    return new BulkItemResult(index, email, Status.CREATED, null);
+  }
+
+  public static BulkItemResult updated(int index, String email) {
+    return new BulkItemResult(index, email, Status.UPDATED, null);
+  }
+
+  public static BulkItemResult rejected(int index, String email, String message) {
+    return new BulkItemResult(index, email, Status.REJECTED, message);
+  }
+}
@@ -0,0 +1,17 @@
+package com.sap.refactoring.dto.response;
+
+import java.util.List;
+
+public record BulkUserResponse(long created, long updated, long rejected,
+                               List<BulkItemResult> items) {
+
+  public static BulkUserResponse of(List<BulkItemResult> items) {
+    return new BulkUserResponse(count(items, BulkItemResult.Status.CREATED),
+        count(items, BulkItemResult.Status.UPDATED), count(items, BulkItemResult.Status.REJECTED),
+        items);
+  }
+
+  private static long count(List<BulkItemResult> items, BulkItemResult.Status status) {
+    return items.stream().filter(item -> item.status() == status).count();
+  }
+}
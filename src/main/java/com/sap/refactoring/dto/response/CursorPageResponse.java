@@ -0,0 +1,7 @@
+package com.sap.refactoring.dto.response;
+
+import java.util.List;
+
+public record CursorPageResponse<T>(List<T> content, boolean hasNext, String nextCursor) {
+
+}
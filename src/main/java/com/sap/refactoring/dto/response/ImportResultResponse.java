@@ -0,0 +1,5 @@
+package com.sap.refactoring.dto.response;
+
+public record ImportResultResponse(long read, long imported, long rejected) {
+
+}
@@ -0,0 +1,15 @@
+package com.sap.refactoring.dto.response;
+
+import java.time.Instant;
+
+/**
+ * One change of one user. {@code user} is the state after the change and is {@code null} for a
+ * deletion.
+ */
+public record UserChangeEvent(long sequence, Type type, String email, UserResponse user,
+    Instant occurredAt) {
+
+  public enum Type {
+    CREATED, UPDATED, DELETED
+  }
+}
@@ -0,0 +1,11 @@
+package com.sap.refactoring.dto.response;
+
+import java.util.List;
+
+/**
+ * A batch of changes in sequence order. {@code next} is the sequence to ask for changes after in
+ * the following call.
+ */
+public record UserChangesResponse(List<UserChangeEvent> changes, long next) {
+
+}
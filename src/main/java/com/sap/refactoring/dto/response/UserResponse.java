@@ -2,7 +2,7 @@ package com.sap.refactoring.dto.response;
 
 import java.util.List;
 
-public record UserResponse(String name, String email, List<String> roles) {
+public record UserResponse(String name, String email, List<String> roles, Long version) {
 
 }
 
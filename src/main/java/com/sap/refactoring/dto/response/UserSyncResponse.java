@@ -0,0 +1,13 @@
+package com.sap.refactoring.dto.response;
+
+import java.util.List;
+
+/**
+ * Users created or updated and emails deleted since the requested token, each in its latest
+ * state. {@code token} is the watermark to pass as {@code since} in the following call; while
+ * {@code hasMore} is set there are further changes to fetch right away.
+ */
+public record UserSyncResponse(List<UserResponse> users, List<String> deleted, String token,
+    boolean hasMore) {
+
+}
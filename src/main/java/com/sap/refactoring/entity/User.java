@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -22,7 +23,7 @@ import org.hibernate.type.SqlTypes;
 @Entity
 @Table(name = "users", indexes = {
     @Index(name = "idx_users_email", columnList = "email", unique = true),
-    @Index(name = "idx_users_name", columnList = "name")
+    @Index(name = "idx_users_name", columnList = "name", unique = true)
 })
 @Getter
 @Setter
@@ -49,5 +50,9 @@ public class User {
   @JdbcTypeCode(SqlTypes.ARRAY)
   private List<String> roles = new ArrayList<>();
 
+  @Version
+  @Column(nullable = false)
+  private Long version;
+
 }
 
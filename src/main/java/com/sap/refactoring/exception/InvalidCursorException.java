@@ -0,0 +1,8 @@
+package com.sap.refactoring.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+  public InvalidCursorException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.sap.refactoring.exception;
+
+public class VersionMismatchException extends RuntimeException {
+
+  public VersionMismatchException(String message) {
+    super(message);
+  }
+}
@@ -1,18 +1,27 @@
 package com.sap.refactoring.exception.handler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.sap.refactoring.dto.response.ErrorResponse;
 import com.sap.refactoring.dto.response.ValidationErrorResponse;
+import com.sap.refactoring.exception.ChangesExpiredException;
 import com.sap.refactoring.exception.EntityAlreadyExistsException;
 import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.exception.InvalidCursorException;
 import com.sap.refactoring.exception.InvalidUserRolesException;
+import com.sap.refactoring.exception.VersionMismatchException;
+import com.sap.refactoring.util.Constants;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -20,14 +29,19 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<ValidationErrorResponse> handleValidation(
       MethodArgumentNotValidException ex) {
-    Map<String, String> errors = new HashMap<>();
-    ex.getBindingResult().getAllErrors().forEach(error -> {
-      String fieldName =
-          error instanceof FieldError ? ((FieldError) error).getField() : error.getObjectName();
-      errors.put(fieldName, error.getDefaultMessage());
-    });
-    ValidationErrorResponse body = new ValidationErrorResponse("Validation failed",
-        HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis(), errors);
+    return validationFailed(ex.getBindingResult());
+  }
+
+  @ExceptionHandler(WebExchangeBindException.class)
+  public ResponseEntity<ValidationErrorResponse> handleReactiveValidation(
+      WebExchangeBindException ex) {
+    return validationFailed(ex.getBindingResult());
+  }
+
+  @ExceptionHandler(JsonProcessingException.class)
+  public ResponseEntity<ErrorResponse> handleMalformedJson(JsonProcessingException ex) {
+    ErrorResponse body = new ErrorResponse(ex.getOriginalMessage(), HttpStatus.BAD_REQUEST.value(),
+        System.currentTimeMillis());
     return ResponseEntity.badRequest().body(body);
   }
 
@@ -38,6 +52,29 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
   }
 
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(
+      DataIntegrityViolationException ex) {
+    ErrorResponse body = new ErrorResponse(Constants.USER_CONFLICTS_WITH_EXISTING_DATA_ERR_MSG,
+        HttpStatus.CONFLICT.value(), System.currentTimeMillis());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(
+      OptimisticLockingFailureException ex) {
+    ErrorResponse body = new ErrorResponse(Constants.USER_CONFLICTS_WITH_EXISTING_DATA_ERR_MSG,
+        HttpStatus.CONFLICT.value(), System.currentTimeMillis());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+  }
+
+  @ExceptionHandler(VersionMismatchException.class)
+  public ResponseEntity<ErrorResponse> handleVersionMismatch(VersionMismatchException ex) {
+    ErrorResponse body = new ErrorResponse(ex.getMessage(),
+        HttpStatus.PRECONDITION_FAILED.value(), System.currentTimeMillis());
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(body);
+  }
+
   @ExceptionHandler(InvalidUserRolesException.class)
   public ResponseEntity<ErrorResponse> handleInvalidRoles(InvalidUserRolesException ex) {
     ErrorResponse body = new ErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY.value(),
@@ -45,12 +82,36 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(body);
   }
 
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+    ErrorResponse body = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value(),
+        System.currentTimeMillis());
+    return ResponseEntity.badRequest().body(body);
+  }
+
+  @ExceptionHandler(ChangesExpiredException.class)
+  public ResponseEntity<ErrorResponse> handleChangesExpired(ChangesExpiredException ex) {
+    ErrorResponse body = new ErrorResponse(ex.getMessage(), HttpStatus.GONE.value(),
+        System.currentTimeMillis());
+    return ResponseEntity.status(HttpStatus.GONE).body(body);
+  }
+
   @ExceptionHandler(EntityNotFoundException.class)
   public ResponseEntity<ErrorResponse> handleNotFound(RuntimeException ex) {
     ErrorResponse body = new ErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND.value(),
         System.currentTimeMillis());
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
   }
-}
-
 
+  private ResponseEntity<ValidationErrorResponse> validationFailed(BindingResult bindingResult) {
+    Map<String, String> errors = new HashMap<>();
+    bindingResult.getAllErrors().forEach(error -> {
+      String fieldName =
+          error instanceof FieldError ? ((FieldError) error).getField() : error.getObjectName();
+      errors.put(fieldName, error.getDefaultMessage());
+    });
+    ValidationErrorResponse body = new ValidationErrorResponse("Validation failed",
+        HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis(), errors);
+    return ResponseEntity.badRequest().body(body);
+  }
+}
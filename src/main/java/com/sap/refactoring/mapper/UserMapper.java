@@ -12,9 +12,11 @@ import org.mapstruct.MappingTarget;
 public interface UserMapper {
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateUser(UserRequest userRequest, @MappingTarget User user);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toUser(UserRequest request);
 
     UserResponse toResponse(User user);
@@ -0,0 +1,44 @@
+package com.sap.refactoring.metrics;
+
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges for the size of the in-memory store and of each of its indexes. Every index except the
+ * role postings and the mutation-sequence index holds one entry per user, so a drift between the
+ * store and one of those sizes points at an index that is not maintained on some write path.
+ */
+@Component
+@Profile("in_memory")
+@RequiredArgsConstructor
+public class InMemoryUserStoreMetrics implements MeterBinder {
+
+  private final InMemoryUserRepository userRepository;
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("users.store.size", userRepository, InMemoryUserRepository::size)
+        .description("Number of users held by the in-memory store")
+        .register(registry);
+    for (String index : userRepository.indexSizes().keySet()) {
+      Gauge.builder("users.store.index.size", userRepository,
+              repository -> repository.indexSizes().get(index))
+          .description("Number of entries held by an in-memory index")
+          .tag("index", index)
+          .register(registry);
+    }
+    Gauge.builder("users.store.role.postings", userRepository,
+            InMemoryUserRepository::rolePostings)
+        .description("Number of user ids held by the role index, one per role of each user")
+        .register(registry);
+    Gauge.builder("users.store.change.order.size", userRepository,
+            InMemoryUserRepository::changeOrderSize)
+        .description("Number of users and tombstones held by the mutation-sequence index")
+        .register(registry);
+  }
+}
@@ -0,0 +1,33 @@
+package com.sap.refactoring.metrics;
+
+import com.sap.refactoring.repository.impl.OffHeapUserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges for the size of the off-heap store and the direct memory its slabs reserve. The JVM
+ * reports direct buffer usage as well, but not which part of it belongs to the store.
+ */
+@Component
+@Profile("off_heap")
+@RequiredArgsConstructor
+public class OffHeapUserStoreMetrics implements MeterBinder {
+
+  private final OffHeapUserRepository userRepository;
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("users.store.size", userRepository, OffHeapUserRepository::size)
+        .description("Number of users held by the off-heap store")
+        .register(registry);
+    Gauge.builder("users.store.offheap.reserved", userRepository,
+            OffHeapUserRepository::reservedBytes)
+        .description("Direct memory reserved by the slabs of the off-heap store")
+        .baseUnit("bytes")
+        .register(registry);
+  }
+}
@@ -0,0 +1,121 @@
+package com.sap.refactoring.metrics;
+
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.exception.InvalidCursorException;
+import com.sap.refactoring.exception.InvalidUserRolesException;
+import com.sap.refactoring.exception.VersionMismatchException;
+import com.sap.refactoring.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ValidationException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Times every {@code UserService} and {@code UserRepository} call. Each timer is tagged with the
+ * method, the implementing class, the storage profile and the outcome, and publishes a percentile
+ * histogram so latency quantiles can be aggregated across instances.
+ */
+@Aspect
+@Component
+public class UserMetricsAspect {
+
+  static final String SERVICE_TIMER = "users.service";
+  static final String REPOSITORY_TIMER = "users.repository";
+
+  private static final String SUCCESS = "success";
+  private static final String NOT_FOUND = "not-found";
+  private static final String CONFLICT = "conflict";
+  private static final String VALIDATION_FAILURE = "validation-failure";
+  private static final String ERROR = "error";
+
+  private final MeterRegistry meterRegistry;
+  private final String profile;
+  private final Map<Class<?>, String> componentNames = new ConcurrentHashMap<>();
+
+  public UserMetricsAspect(MeterRegistry meterRegistry, Environment environment) {
+    this.meterRegistry = meterRegistry;
+    this.profile = Arrays.stream(environment.getActiveProfiles())
+        .filter(active -> active.equals("in_memory") || active.equals("off_heap")
+            || active.equals("postgres"))
+        .findFirst()
+        .orElseGet(() -> String.join(",", environment.getDefaultProfiles()));
+  }
+
+  @Around("execution(* com.sap.refactoring.service.UserService.*(..))")
+  public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(SERVICE_TIMER, joinPoint);
+  }
+
+  @Around("execution(* com.sap.refactoring.repository.UserRepository.*(..))")
+  public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(REPOSITORY_TIMER, joinPoint);
+  }
+
+  private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = ERROR;
+    try {
+      Object result = joinPoint.proceed();
+      outcome = result instanceof Optional<?> optional && optional.isEmpty() ? NOT_FOUND : SUCCESS;
+      return result;
+    } catch (Throwable ex) {
+      outcome = outcome(ex);
+      throw ex;
+    } finally {
+      sample.stop(Timer.builder(name)
+          .tag("method", joinPoint.getSignature().getName())
+          .tag("class", componentNames.computeIfAbsent(joinPoint.getTarget().getClass(),
+              UserMetricsAspect::componentName))
+          .tag("profile", profile)
+          .tag("outcome", outcome)
+          .publishPercentileHistogram()
+          .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Spring Data repositories are JDK proxies; they are named after the repository interface they
+   * implement rather than the generated proxy class.
+   */
+  private static String componentName(Class<?> type) {
+    if (Proxy.isProxyClass(type)) {
+      return Arrays.stream(type.getInterfaces())
+          .filter(UserRepository.class::isAssignableFrom)
+          .findFirst()
+          .orElse(type)
+          .getSimpleName();
+    }
+    return ClassUtils.getUserClass(type).getSimpleName();
+  }
+
+  private static String outcome(Throwable ex) {
+    if (ex instanceof EntityNotFoundException) {
+      return NOT_FOUND;
+    }
+    if (ex instanceof EntityAlreadyExistsException
+        || ex instanceof DataIntegrityViolationException
+        || ex instanceof OptimisticLockingFailureException
+        || ex instanceof VersionMismatchException) {
+      return CONFLICT;
+    }
+    if (ex instanceof InvalidUserRolesException
+        || ex instanceof InvalidCursorException
+        || ex instanceof ValidationException) {
+      return VALIDATION_FAILURE;
+    }
+    return ERROR;
+  }
+}
@@ -0,0 +1,46 @@
+package com.sap.refactoring.repository;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.InvalidCursorException;
+import com.sap.refactoring.util.Constants;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last row of a keyset page: the value of the sort column plus the id that breaks
+ * ties. Clients only ever see it as an opaque URL-safe token.
+ */
+public record KeysetCursor(String value, UUID id) {
+
+  private static final char SEPARATOR = ':';
+
+  public static KeysetCursor of(User user, String sortBy) {
+    String value = switch (sortBy) {
+      case "name" -> user.getName();
+      case "email" -> user.getEmail();
+      default -> null;
+    };
+    return new KeysetCursor(value, user.getId());
+  }
+
+  public static KeysetCursor decode(String token) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = decoded.indexOf(SEPARATOR);
+      if (separator < 0) {
+        return new KeysetCursor(null, UUID.fromString(decoded));
+      }
+      return new KeysetCursor(decoded.substring(separator + 1),
+          UUID.fromString(decoded.substring(0, separator)));
+    } catch (IllegalArgumentException ex) {
+      throw new InvalidCursorException(String.format(Constants.INVALID_CURSOR_ERR_MSG, token));
+    }
+  }
+
+  public String encode() {
+    String raw = value == null ? id.toString() : id.toString() + SEPARATOR + value;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,37 @@
+package com.sap.refactoring.repository;
+
+import com.sap.refactoring.entity.User;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository} for the {@code reactive} profile. Every
+ * operation is a single statement; result streams are pulled from the database as the subscriber
+ * requests them.
+ */
+public interface ReactiveUserRepository {
+
+  /**
+   * Emits the stored user, or completes empty when the email or the name is already taken.
+   */
+  Mono<User> insert(User user);
+
+  /**
+   * Same contract as {@link UserRepository#update}: completes empty when no user matched.
+   */
+  Mono<User> update(User user, Long expectedVersion);
+
+  Mono<User> findByEmail(String email);
+
+  Mono<Boolean> existsByEmail(String email);
+
+  Flux<User> findAllAfter(KeysetCursor cursor, Sort.Order order, int limit);
+
+  Flux<User> streamAll();
+
+  /**
+   * Emits whether a user was deleted.
+   */
+  Mono<Boolean> deleteByEmail(String email);
+}
@@ -0,0 +1,21 @@
+package com.sap.refactoring.repository;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Restricts a listing to users holding all of the given roles, or any of them when
+ * {@code matchAll} is not set.
+ */
+public record RoleFilter(Set<String> roles, boolean matchAll) {
+
+  public RoleFilter {
+    roles = Set.copyOf(roles);
+  }
+
+  public boolean matches(Collection<String> userRoles) {
+    return matchAll
+        ? userRoles.containsAll(roles)
+        : roles.stream().anyMatch(userRoles::contains);
+  }
+}
@@ -0,0 +1,61 @@
+package com.sap.refactoring.repository;
+
+import com.sap.refactoring.exception.ChangesExpiredException;
+import com.sap.refactoring.exception.InvalidCursorException;
+import com.sap.refactoring.util.Constants;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Watermark of an incremental sync: the last change sequence a client has seen, plus the epoch of
+ * the store that numbered it. Stores that restart their sequence pick a new epoch, so tokens they
+ * did not issue are rejected instead of silently skipping changes. Clients only ever see it as an
+ * opaque URL-safe token.
+ */
+public record SyncToken(long epoch, long sequence) {
+
+  private static final char SEPARATOR = ':';
+
+  public static SyncToken decode(String token) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = decoded.indexOf(SEPARATOR);
+      if (separator < 0) {
+        throw new IllegalArgumentException(token);
+      }
+      long sequence = Long.parseLong(decoded.substring(separator + 1));
+      if (sequence < 0) {
+        throw new IllegalArgumentException(token);
+      }
+      return new SyncToken(Long.parseUnsignedLong(decoded.substring(0, separator), 16), sequence);
+    } catch (IllegalArgumentException ex) {
+      throw new InvalidCursorException(String.format(Constants.INVALID_SYNC_TOKEN_ERR_MSG, token));
+    }
+  }
+
+  public String encode() {
+    String raw = Long.toHexString(epoch) + SEPARATOR + sequence;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * The sequence to read after in a store of {@code epoch} whose last change is {@code last}.
+   * A token from another epoch, or ahead of the store, can no longer be served incrementally.
+   */
+  public long after(long epoch, long last) {
+    return after(epoch, 0, last);
+  }
+
+  /**
+   * As {@link #after(long, long)}, for a store that has dropped the tombstones up to
+   * {@code purged}: a token from before them would miss those deletions.
+   */
+  public long after(long epoch, long purged, long last) {
+    if (this.epoch != epoch || sequence < purged || sequence > last) {
+      throw new ChangesExpiredException(
+          String.format(Constants.USER_SYNC_EXPIRED_ERR_MSG, encode()));
+    }
+    return sequence;
+  }
+}
@@ -0,0 +1,45 @@
+package com.sap.refactoring.repository;
+
+import com.sap.refactoring.dto.response.UserChangeEvent;
+import com.sap.refactoring.entity.User;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Ordered log of user changes, read incrementally by consumers instead of rescanning all users.
+ * Sequence numbers grow in the order the changes became visible, so a consumer that has seen a
+ * sequence has seen every change before it.
+ */
+public interface UserChangeLog {
+
+  /**
+   * Runs {@code write}, which touches the users with {@code emails}, and appends the changes
+   * derived from its result in the same step, so the changes of one user are logged in the order
+   * of its writes. Nothing is logged when {@code write} throws.
+   */
+  <T> T record(Collection<String> emails, Supplier<T> write,
+      Function<? super T, List<Change>> changes);
+
+  /**
+   * Up to {@code limit} changes with a sequence above {@code after}, waiting up to {@code wait}
+   * for the first one. Throws {@code ChangesExpiredException} when changes after {@code after}
+   * are no longer held.
+   */
+  List<UserChangeEvent> findAfter(long after, int limit, Duration wait);
+
+  long lastSequence();
+
+  record Change(UserChangeEvent.Type type, String email, User user) {
+
+    public static Change of(UserChangeEvent.Type type, User user) {
+      return new Change(type, user.getEmail(), user);
+    }
+
+    public static Change deleted(String email) {
+      return new Change(UserChangeEvent.Type.DELETED, email, null);
+    }
+  }
+}
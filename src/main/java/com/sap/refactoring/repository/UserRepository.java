@@ -1,26 +1,91 @@
 package com.sap.refactoring.repository;
 
+import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 public interface UserRepository {
 
   User save(User user);
 
+  /**
+   * Stores a new user in a single write and throws {@code EntityAlreadyExistsException} when the
+   * email or the name is already taken, instead of relying on prior existence checks.
+   */
+  User insert(User user);
+
+  /**
+   * Replaces the name and roles of the user with the same email and bumps its version in a single
+   * conditional write. When {@code expectedVersion} is given the write only applies while the
+   * stored version still equals it. Returns empty when no user matched.
+   */
+  Optional<User> update(User user, Long expectedVersion);
+
+  List<User> saveAll(List<User> users);
+
+  /**
+   * Writes out pending changes and forgets every loaded entity, so a long batch keeps a bounded
+   * persistence context. Stores without one have nothing to do.
+   */
+  void flushAndClear();
+
   Optional<User> findByEmail(String email);
 
+  List<User> findAllByEmailIn(Collection<String> emails);
+
   List<User> findAll();
 
+  Stream<User> streamAll();
+
   Page<User> findAll(Pageable pageable);
 
+  /**
+   * Read-only view of the user with the given email, built straight from the stored row without
+   * materializing an entity.
+   */
+  Optional<UserResponse> findResponseByEmail(String email);
+
+  List<UserResponse> findAllResponses();
+
+  Page<UserResponse> findAllResponses(Pageable pageable);
+
+  /**
+   * Read-only views of the users matching {@code roles}, served from a role index instead of a
+   * scan over every user.
+   */
+  List<UserResponse> findResponsesByRoles(RoleFilter roles);
+
+  Page<UserResponse> findResponsesByRoles(RoleFilter roles, Pageable pageable);
+
+  Slice<User> findAllAfter(KeysetCursor cursor, Sort.Order order, int size);
+
+  /**
+   * Up to {@code limit} users changed and emails deleted after {@code since}, ordered by a
+   * mutation sequence that only grows in the order writes become visible. Without a token, every
+   * current user and no deletions.
+   */
+  UserSyncBatch findChangedSince(SyncToken since, int limit);
+
+  /**
+   * Token of the latest change. It moves with every create, update and delete, so it stamps the
+   * version of the whole collection: reads that follow it never miss a change it covers.
+   */
+  SyncToken lastChange();
+
   void deleteByEmail(String email);
 
   boolean existsByEmail(String email);
 
   boolean existsByName(String name);
+
+  List<String> findExistingNames(Collection<String> names);
 }
 
 
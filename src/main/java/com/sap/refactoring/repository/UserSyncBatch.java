@@ -0,0 +1,12 @@
+package com.sap.refactoring.repository;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import java.util.List;
+
+/**
+ * Users created or updated and emails deleted after a {@link SyncToken}, in change order, with
+ * the token that follows them. Each email appears at most once, in its latest state.
+ */
+public record UserSyncBatch(List<UserResponse> users, List<String> deleted, SyncToken next,
+    boolean hasMore) {
+}
@@ -0,0 +1,141 @@
+package com.sap.refactoring.repository.impl;
+
+import com.sap.refactoring.dto.response.UserChangeEvent;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.ChangesExpiredException;
+import com.sap.refactoring.repository.UserChangeLog;
+import com.sap.refactoring.util.Constants;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Change log of the in-process stores: a ring buffer holding the latest {@code capacity} changes.
+ * A write and the append of its changes run under the lock stripes of the emails it touches
+ * (taken in stripe order, so bulk writes cannot deadlock), which keeps the changes of one user in
+ * the order of its writes. A consumer that falls behind the ring has to resynchronize.
+ */
+public class InMemoryUserChangeLog implements UserChangeLog {
+
+  private static final int STRIPES = 64;
+
+  private final UserChangeEvent[] ring;
+  private final int mask;
+  private final Lock[] stripes = new Lock[STRIPES];
+  private final Lock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private long last;
+
+  public InMemoryUserChangeLog(int capacity) {
+    ring = new UserChangeEvent[Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1];
+    mask = ring.length - 1;
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+  }
+
+  @Override
+  public <T> T record(Collection<String> emails, Supplier<T> write,
+      Function<? super T, List<Change>> changes) {
+    Lock[] held = emails.stream()
+        .filter(Objects::nonNull)
+        .mapToInt(email -> {
+          int hash = email.hashCode();
+          return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+        })
+        .distinct()
+        .sorted()
+        .mapToObj(stripe -> stripes[stripe])
+        .toArray(Lock[]::new);
+    for (Lock stripe : held) {
+      stripe.lock();
+    }
+    try {
+      T result = write.get();
+      append(changes.apply(result));
+      return result;
+    } finally {
+      for (int i = held.length - 1; i >= 0; i--) {
+        held[i].unlock();
+      }
+    }
+  }
+
+  @Override
+  public List<UserChangeEvent> findAfter(long after, int limit, Duration wait) {
+    long deadline = System.nanoTime() + wait.toNanos();
+    lock.lock();
+    try {
+      if (after > last) {
+        throw new ChangesExpiredException(
+            String.format(Constants.USER_CHANGES_EXPIRED_ERR_MSG, after));
+      }
+      while (last == after) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return List.of();
+        }
+        appended.awaitNanos(remaining);
+      }
+      if (after < last - ring.length) {
+        throw new ChangesExpiredException(
+            String.format(Constants.USER_CHANGES_EXPIRED_ERR_MSG, after));
+      }
+      int count = (int) Math.min(limit, last - after);
+      List<UserChangeEvent> events = new ArrayList<>(count);
+      for (long sequence = after + 1; sequence <= after + count; sequence++) {
+        events.add(ring[(int) (sequence & mask)]);
+      }
+      return events;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return List.of();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long lastSequence() {
+    lock.lock();
+    try {
+      return last;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void append(List<Change> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    Instant now = Instant.now();
+    lock.lock();
+    try {
+      for (Change change : changes) {
+        last++;
+        ring[(int) (last & mask)] = new UserChangeEvent(last, change.type(), change.email(),
+            toResponse(change.user()), now);
+      }
+      appended.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static UserResponse toResponse(User user) {
+    return user == null ? null : new UserResponse(user.getName(), user.getEmail(),
+        // Role lists may hold null elements, which List.copyOf would reject
+        Collections.unmodifiableList(new ArrayList<>(user.getRoles())), user.getVersion());
+  }
+}
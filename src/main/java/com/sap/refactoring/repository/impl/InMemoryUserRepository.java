@@ -1,59 +1,193 @@
 package com.sap.refactoring.repository.impl;
 
+import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.repository.SyncToken;
 import com.sap.refactoring.repository.UserRepository;
+import com.sap.refactoring.repository.UserSyncBatch;
+import com.sap.refactoring.util.Constants;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Writes are serialized per email through a fixed set of lock stripes, so every write to one email
+ * is linearizable while writes to different emails proceed in parallel. Names are claimed with
+ * compare-and-set on the name index, which keeps them unique across stripes. Conditional updates
+ * compare the stored version and swap the record while holding the stripe. Reads never lock.
+ * An inverted index from role to user ids serves role-filtered listings without a full scan.
+ * A mutation-sequence index holds the latest write per email, deletions included, in the order
+ * the writes became visible, so incremental syncs read only what changed. At most
+ * {@value #MAX_TOMBSTONES} deletions are kept; once the oldest is dropped, tokens from before it
+ * expire and their clients start a full sync.
+ * When persistence is enabled, a {@link UserJournal} logs every write and recovers the store on
+ * startup.
+ */
 @Repository
 @Profile("in_memory")
 public class InMemoryUserRepository implements UserRepository {
 
-  private final List<User> users = new CopyOnWriteArrayList<>();
-  private final ConcurrentMap<String, UUID> emailIndex = new ConcurrentHashMap<>();
-  private final ConcurrentMap<String, UUID> nameIndex = new ConcurrentHashMap<>();
+  private static final int STRIPES =
+      Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 16;
+
+  static final int MAX_TOMBSTONES = 100_000;
+
+  private final ConcurrentMap<UUID, UserRecord> users = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, UserRecord> emailIndex = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, UserRecord> nameIndex = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<UUID>> roleIndex = new ConcurrentHashMap<>();
+  private final RankedIndex<UserRecord> idOrder = new RankedIndex<>(UserRecord.indexOrder("id"));
+  private final RankedIndex<UserRecord> nameOrder =
+      new RankedIndex<>(UserRecord.indexOrder("name"));
+  private final RankedIndex<UserRecord> emailOrder =
+      new RankedIndex<>(UserRecord.indexOrder("email"));
+  private final ConcurrentNavigableMap<Long, Change> changeOrder = new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<String, Long> changeSequences = new ConcurrentHashMap<>();
+  private final Lock sequencer = new ReentrantLock();
+  // guarded by sequencer
+  private final NavigableMap<Long, String> tombstones = new TreeMap<>();
+  private final long epoch = ThreadLocalRandom.current().nextLong();
+  private final int maxTombstones;
+  private volatile long purgedSequence;
+  private volatile long lastSequence;
+  private final Lock[] stripes = new Lock[STRIPES];
+  private final UserJournal journal;
+
+  public InMemoryUserRepository() {
+    this(Optional.empty());
+  }
+
+  /**
+   * With a journal, the store is recovered from disk here and every write is logged.
+   */
+  @Autowired
+  public InMemoryUserRepository(Optional<UserJournal> journal) {
+    this(journal, MAX_TOMBSTONES);
+  }
+
+  public InMemoryUserRepository(Optional<UserJournal> journal, int maxTombstones) {
+    this.maxTombstones = maxTombstones;
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.journal = journal.orElse(null);
+    if (this.journal != null) {
+      this.journal.open(this::restore, users::values);
+    }
+  }
 
   @Override
   public User save(User user) {
-
-    Optional<User> existingUser = findByEmail(user.getEmail());
-
-    if (existingUser.isPresent()) {
-      User existing = existingUser.get();
-      existing.setName(user.getName());
-      existing.setRoles(user.getRoles());
-      return existing;
-    } else {
-      User userToSave = User.builder()
-          .name(user.getName())
-          .email(user.getEmail())
-          .roles(user.getRoles())
-          .build();
-
-      userToSave.setId(UUID.randomUUID());
-      users.add(userToSave);
-
-      if (userToSave.getEmail() != null) {
-        emailIndex.put(userToSave.getEmail(), userToSave.getId());
+    Lock lock = lockFor(user.getEmail());
+    UserRecord saved;
+    long position;
+    lock.lock();
+    try {
+      UserRecord existing = user.getEmail() == null ? null : emailIndex.get(user.getEmail());
+      if (existing == null) {
+        saved = UserRecord.of(UUID.randomUUID(), 0, user);
+      } else if (user.getVersion() != null && user.getVersion() != existing.version()) {
+        throw new OptimisticLockingFailureException(String.format(
+            Constants.USER_VERSION_MISMATCH_ERR_MSG, user.getEmail(), user.getVersion()));
+      } else {
+        saved = UserRecord.of(existing.id(), existing.version() + 1, user);
       }
-      if (userToSave.getName() != null) {
-        nameIndex.put(userToSave.getName(), userToSave.getId());
+      position = write(existing, saved);
+    } finally {
+      lock.unlock();
+    }
+    awaitDurable(position);
+    return saved.toUser();
+  }
+
+  @Override
+  public User insert(User user) {
+    Lock lock = lockFor(user.getEmail());
+    UserRecord inserted;
+    long position;
+    lock.lock();
+    try {
+      if (user.getEmail() != null && emailIndex.containsKey(user.getEmail())) {
+        throw new EntityAlreadyExistsException(
+            String.format(Constants.USER_ALREADY_EXISTS_BY_EMAIL_ERR_MSG, user.getEmail()));
       }
+      inserted = UserRecord.of(UUID.randomUUID(), 0, user);
+      position = write(null, inserted);
+    } finally {
+      lock.unlock();
+    }
+    awaitDurable(position);
+    return inserted.toUser();
+  }
 
-      return userToSave;
+  @Override
+  public Optional<User> update(User user, Long expectedVersion) {
+    if (user.getEmail() == null) {
+      return Optional.empty();
+    }
+    Lock lock = lockFor(user.getEmail());
+    UserRecord updated;
+    long position;
+    lock.lock();
+    try {
+      UserRecord existing = emailIndex.get(user.getEmail());
+      if (existing == null
+          || (expectedVersion != null && existing.version() != expectedVersion)) {
+        return Optional.empty();
+      }
+      updated = UserRecord.of(existing.id(), existing.version() + 1, user);
+      position = write(existing, updated);
+    } finally {
+      lock.unlock();
     }
+    awaitDurable(position);
+    return Optional.of(updated.toUser());
+  }
+
+  @Override
+  public List<User> saveAll(List<User> users) {
+    return users.stream()
+        .map(this::save)
+        .toList();
+  }
+
+  @Override
+  public void flushAndClear() {
+    // records are stored on write, nothing is held per caller
   }
 
   @Override
@@ -61,46 +195,139 @@ public class InMemoryUserRepository implements UserRepository {
     if (email == null) {
       return Optional.empty();
     }
-    UUID userId = emailIndex.get(email);
-    if (userId == null) {
-      return Optional.empty();
-    }
-    return users.stream()
-        .filter(user -> user.getId().equals(userId))
-        .findFirst();
+    return Optional.ofNullable(emailIndex.get(email)).map(UserRecord::toUser);
+  }
+
+  @Override
+  public List<User> findAllByEmailIn(Collection<String> emails) {
+    return emails.stream()
+        .filter(Objects::nonNull)
+        .map(emailIndex::get)
+        .filter(Objects::nonNull)
+        .map(UserRecord::toUser)
+        .toList();
   }
 
   @Override
   public List<User> findAll() {
-    return List.copyOf(users);
+    return users.values().stream()
+        .map(UserRecord::toUser)
+        .toList();
+  }
+
+  @Override
+  public Stream<User> streamAll() {
+    return users.values().stream().map(UserRecord::toUser);
   }
 
   @Override
   public Page<User> findAll(Pageable pageable) {
-    List<User> sortedUsers = new CopyOnWriteArrayList<>(users);
-
-    if (pageable.getSort().isSorted()) {
-      for (Sort.Order order : pageable.getSort()) {
-        Comparator<User> comparator = switch (order.getProperty().toLowerCase()) {
-          case "name" ->
-              Comparator.comparing(User::getName, Comparator.nullsLast(Comparator.naturalOrder()));
-          case "email" ->
-              Comparator.comparing(User::getEmail, Comparator.nullsLast(Comparator.naturalOrder()));
-          default -> Comparator.comparing(User::getId);
-        };
-        if (order.getDirection() == Sort.Direction.DESC) {
-          comparator = comparator.reversed();
+    RankedIndex.Range<UserRecord> range = range(pageable);
+    List<User> content = range.content().stream()
+        .map(UserRecord::toUser)
+        .toList();
+    return new PageImpl<>(content, pageable, range.total());
+  }
+
+  @Override
+  public Optional<UserResponse> findResponseByEmail(String email) {
+    if (email == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(emailIndex.get(email)).map(UserRecord::toResponse);
+  }
+
+  @Override
+  public List<UserResponse> findAllResponses() {
+    return users.values().stream()
+        .map(UserRecord::toResponse)
+        .toList();
+  }
+
+  @Override
+  public Page<UserResponse> findAllResponses(Pageable pageable) {
+    RankedIndex.Range<UserRecord> range = range(pageable);
+    List<UserResponse> content = range.content().stream()
+        .map(UserRecord::toResponse)
+        .toList();
+    return new PageImpl<>(content, pageable, range.total());
+  }
+
+  @Override
+  public List<UserResponse> findResponsesByRoles(RoleFilter roles) {
+    return matching(roles)
+        .map(UserRecord::toResponse)
+        .toList();
+  }
+
+  @Override
+  public Page<UserResponse> findResponsesByRoles(RoleFilter roles, Pageable pageable) {
+    Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+    List<UserRecord> matches = matching(roles)
+        .sorted(UserRecord.comparator(sort))
+        .toList();
+    List<UserResponse> content = matches.stream()
+        .skip(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .map(UserRecord::toResponse)
+        .toList();
+    return new PageImpl<>(content, pageable, matches.size());
+  }
+
+  @Override
+  public Slice<User> findAllAfter(KeysetCursor cursor, Sort.Order order, int size) {
+    UserRecord probe = cursor == null ? null : UserRecord.probe(cursor, order.getProperty());
+    List<UserRecord> window = sortedIndex(order.getProperty())
+        .seek(probe, size + 1, order.isDescending());
+    boolean hasNext = window.size() > size;
+    List<User> content = window.stream()
+        .limit(size)
+        .map(UserRecord::toUser)
+        .toList();
+    return new SliceImpl<>(content, Pageable.ofSize(size), hasNext);
+  }
+
+  @Override
+  public UserSyncBatch findChangedSince(SyncToken since, int limit) {
+    long after = since == null ? 0 : since.after(epoch, purgedSequence, lastSequence);
+    Map<String, UserResponse> users = new LinkedHashMap<>();
+    Set<String> deleted = new LinkedHashSet<>();
+    long next = after;
+    boolean hasMore = false;
+    // a superseded entry is dropped just after its replacement is added, so an email may show up
+    // twice; the later entry wins
+    for (Map.Entry<Long, Change> entry : changeOrder.tailMap(after, false).entrySet()) {
+      if (users.size() + deleted.size() == limit) {
+        hasMore = true;
+        break;
+      }
+      next = entry.getKey();
+      Change change = entry.getValue();
+      if (change.user() == null) {
+        users.remove(change.email());
+        if (since != null) {
+          deleted.add(change.email());
         }
-        sortedUsers.sort(comparator);
+      } else {
+        deleted.remove(change.email());
+        users.put(change.email(), change.user().toResponse());
       }
     }
+    if (since != null) {
+      // a tombstone past the token may have been dropped while the changes were read
+      since.after(epoch, purgedSequence, lastSequence);
+    }
+    return new UserSyncBatch(List.copyOf(users.values()), List.copyOf(deleted),
+        new SyncToken(epoch, next), hasMore);
+  }
 
-    int total = sortedUsers.size();
-    int start = Math.toIntExact(pageable.getOffset());
-    int end = Math.min(start + pageable.getPageSize(), total);
-    List<User> content = start >= total ? new ArrayList<>() : sortedUsers.subList(start, end);
-
-    return new PageImpl<>(content, pageable, total);
+  /**
+   * The sequence is published after the write it numbers, so a read that starts after this call
+   * sees at least the writes it covers.
+   */
+  @Override
+  public SyncToken lastChange() {
+    return new SyncToken(epoch, lastSequence);
   }
 
   @Override
@@ -108,21 +335,24 @@ public class InMemoryUserRepository implements UserRepository {
     if (email == null) {
       return;
     }
-    UUID userId = emailIndex.get(email);
-    if (userId != null) {
-      User userToRemove = users.stream()
-          .filter(user -> user.getId().equals(userId))
-          .findFirst()
-          .orElse(null);
-
-      if (userToRemove != null) {
-        users.remove(userToRemove);
-        emailIndex.remove(email);
-        if (userToRemove.getName() != null) {
-          nameIndex.remove(userToRemove.getName());
-        }
+    Lock lock = lockFor(email);
+    long position;
+    lock.lock();
+    try {
+      UserRecord removed = emailIndex.get(email);
+      if (removed == null) {
+        return;
+      }
+      if (journal == null) {
+        remove(removed);
+        position = 0;
+      } else {
+        position = journal.delete(removed.id(), () -> remove(removed));
       }
+    } finally {
+      lock.unlock();
     }
+    awaitDurable(position);
   }
 
   @Override
@@ -134,4 +364,312 @@ public class InMemoryUserRepository implements UserRepository {
   public boolean existsByName(String name) {
     return name != null && nameIndex.containsKey(name);
   }
-}
\ No newline at end of file
+
+  @Override
+  public List<String> findExistingNames(Collection<String> names) {
+    return names.stream()
+        .filter(this::existsByName)
+        .toList();
+  }
+
+  /**
+   * Warm-loads an empty store from a file in the {@link UserSnapshotFormat}. With a journal, the
+   * loaded state is snapshotted right away so that it survives a restart.
+   */
+  public void load(Path snapshot) throws IOException {
+    if (!users.isEmpty()) {
+      throw new IllegalStateException("A snapshot can only be loaded into an empty store");
+    }
+    restore(UserSnapshotFormat.read(snapshot));
+    if (journal != null) {
+      journal.checkpoint();
+    }
+  }
+
+  /**
+   * Writes a consistent snapshot of the store in the {@link UserSnapshotFormat}.
+   */
+  public void writeSnapshot(OutputStream output) throws IOException {
+    UserSnapshotFormat.write(consistentView(), output);
+  }
+
+  /**
+   * Number of stored users.
+   */
+  public int size() {
+    return users.size();
+  }
+
+  /**
+   * Number of entries held by each secondary index with one entry per user, keyed by index name.
+   */
+  public Map<String, Integer> indexSizes() {
+    return Map.of(
+        "email", emailIndex.size(),
+        "name", nameIndex.size(),
+        "id-order", idOrder.size(),
+        "name-order", nameOrder.size(),
+        "email-order", emailOrder.size());
+  }
+
+  /**
+   * Number of entries in the mutation-sequence index: one per stored user with an email plus one
+   * per tombstone, which is kept until its email is created again or it is the oldest of more
+   * than {@value #MAX_TOMBSTONES}.
+   */
+  public int changeOrderSize() {
+    return changeOrder.size();
+  }
+
+  /**
+   * Number of ids held by the role posting sets, one per distinct non-null role of each stored
+   * user.
+   */
+  public int rolePostings() {
+    return roleIndex.values().stream().mapToInt(Set::size).sum();
+  }
+
+  /**
+   * Stores {@code current} in place of {@code previous} and, with a journal, logs it in the same
+   * step. Returns the log position to wait for once the stripe is released.
+   */
+  private long write(UserRecord previous, UserRecord current) {
+    if (journal == null) {
+      store(previous, current);
+      return 0;
+    }
+    return journal.put(current, () -> store(previous, current));
+  }
+
+  private void awaitDurable(long position) {
+    if (journal != null) {
+      journal.awaitDurable(position);
+    }
+  }
+
+  /**
+   * Loads records from one consistent state into an empty store. The hash indexes are filled in
+   * parallel, each sorted index is sorted in parallel and built in one pass instead of taking the
+   * records one insert at a time.
+   */
+  private void restore(Collection<UserRecord> records) {
+    records.parallelStream().forEach(record -> {
+      users.put(record.id(), record);
+      if (record.email() != null && emailIndex.putIfAbsent(record.email(), record) != null) {
+        throw new IllegalStateException("Restored email is not unique: " + record.email());
+      }
+      if (record.name() != null && nameIndex.putIfAbsent(record.name(), record) != null) {
+        throw new IllegalStateException("Restored name is not unique: " + record.name());
+      }
+      indexRoles(null, record);
+    });
+    UserRecord[] all = records.toArray(UserRecord[]::new);
+    Stream.of(idOrder, nameOrder, emailOrder).parallel().forEach(index -> index.load(all));
+    for (UserRecord record : all) {
+      recordChange(record.email(), record);
+    }
+  }
+
+  /**
+   * Copies the current records while every stripe is held, so no write is half applied and names
+   * stay unique in the copy. Writers wait only for the reference copy, not for the caller.
+   */
+  private List<UserRecord> consistentView() {
+    for (Lock stripe : stripes) {
+      stripe.lock();
+    }
+    try {
+      return new ArrayList<>(users.values());
+    } finally {
+      for (Lock stripe : stripes) {
+        stripe.unlock();
+      }
+    }
+  }
+
+  /**
+   * Drops {@code removed} from the record map and every index. The caller holds the stripe of the
+   * email.
+   */
+  private void remove(UserRecord removed) {
+    emailIndex.remove(removed.email(), removed);
+    if (removed.name() != null) {
+      nameIndex.remove(removed.name(), removed);
+    }
+    users.remove(removed.id(), removed);
+    indexRoles(removed, null);
+    idOrder.remove(removed);
+    nameOrder.remove(removed);
+    emailOrder.remove(removed);
+    recordChange(removed.email(), null);
+  }
+
+  /**
+   * Replaces {@code previous} (or nothing, for a new user) with {@code current} in the record map
+   * and every index. The name is claimed first, so a name conflict leaves the store untouched.
+   * The caller holds the stripe of the email.
+   */
+  private void store(UserRecord previous, UserRecord current) {
+    claimName(previous, current);
+    if (current.email() != null) {
+      emailIndex.put(current.email(), current);
+    }
+    users.put(current.id(), current);
+    indexRoles(previous, current);
+    idOrder.replace(previous, current);
+    nameOrder.replace(previous, current);
+    emailOrder.replace(previous, current);
+    recordChange(current.email(), current);
+  }
+
+  /**
+   * Moves {@code email} to the next mutation sequence, pointing at {@code current} or, for a
+   * deletion, at a tombstone. Sequences are taken and published under one lock, so a reader that
+   * sees a sequence also sees every lower one. Users without an email cannot be addressed by a
+   * sync client and are not tracked. The caller holds the stripe of the email.
+   */
+  private void recordChange(String email, UserRecord current) {
+    if (email == null) {
+      return;
+    }
+    sequencer.lock();
+    try {
+      long sequence = lastSequence + 1;
+      changeOrder.put(sequence, new Change(email, current));
+      lastSequence = sequence;
+      Long previous = changeSequences.put(email, sequence);
+      if (previous != null) {
+        changeOrder.remove(previous);
+        tombstones.remove(previous);
+      }
+      if (current == null) {
+        tombstones.put(sequence, email);
+        if (tombstones.size() > maxTombstones) {
+          dropOldestTombstone();
+        }
+      }
+    } finally {
+      sequencer.unlock();
+    }
+  }
+
+  /**
+   * Drops the oldest tombstone, so tokens from before it expire. The purged sequence is published
+   * before the entry goes, so a reader that misses the entry sees the new floor. The caller holds
+   * the sequencer.
+   */
+  private void dropOldestTombstone() {
+    Map.Entry<Long, String> oldest = tombstones.pollFirstEntry();
+    purgedSequence = oldest.getKey();
+    changeOrder.remove(oldest.getKey());
+    changeSequences.remove(oldest.getValue(), oldest.getKey());
+  }
+
+  /**
+   * Points the name index at {@code current}, taking the name over from {@code previous} (the
+   * record being replaced) and releasing the old name on a rename. A name held by any other record
+   * is a conflict and leaves the index untouched. The caller holds the stripe of the email, so the
+   * only writer that may race on the entry is one claiming the name for a different email.
+   */
+  private void claimName(UserRecord previous, UserRecord current) {
+    if (current.name() != null) {
+      while (true) {
+        UserRecord owner = nameIndex.putIfAbsent(current.name(), current);
+        if (owner == null) {
+          break;
+        }
+        if (owner != previous) {
+          throw new EntityAlreadyExistsException(
+              String.format(Constants.USER_ALREADY_EXISTS_BY_NAME_ERR_MSG, current.name()));
+        }
+        if (nameIndex.replace(current.name(), previous, current)) {
+          break;
+        }
+      }
+    }
+    if (previous != null && previous.name() != null
+        && !previous.name().equals(current.name())) {
+      nameIndex.remove(previous.name(), previous);
+    }
+  }
+
+  /**
+   * Moves the id of a record from the posting sets of its old roles to those of its new ones.
+   * Posting sets are created and dropped atomically per role, so a set is never removed while
+   * another writer adds to it. A null role is stored with the user but cannot be filtered on, so
+   * it has no posting set.
+   */
+  private void indexRoles(UserRecord previous, UserRecord current) {
+    if (previous != null) {
+      for (String role : previous.roles()) {
+        if (role != null && (current == null || !current.roles().contains(role))) {
+          roleIndex.computeIfPresent(role, (key, ids) -> {
+            ids.remove(previous.id());
+            return ids.isEmpty() ? null : ids;
+          });
+        }
+      }
+    }
+    if (current != null) {
+      for (String role : current.roles()) {
+        if (role == null) {
+          continue;
+        }
+        roleIndex.compute(role, (key, ids) -> {
+          Set<UUID> postings = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+          postings.add(current.id());
+          return postings;
+        });
+      }
+    }
+  }
+
+  /**
+   * Resolves a role filter through the posting sets: the smallest set for an all-of match, the
+   * union for an any-of match. Every candidate is re-checked against its current record, since
+   * the role index is updated after the record is stored.
+   */
+  private Stream<UserRecord> matching(RoleFilter roles) {
+    Stream<UUID> candidates = roles.matchAll()
+        ? roles.roles().stream()
+            .map(role -> roleIndex.getOrDefault(role, Set.of()))
+            .min(Comparator.comparingInt(Set::size))
+            .orElse(Set.of())
+            .stream()
+        : roles.roles().stream()
+            .flatMap(role -> roleIndex.getOrDefault(role, Set.of()).stream())
+            .distinct();
+    return candidates
+        .map(users::get)
+        .filter(Objects::nonNull)
+        .filter(user -> roles.matches(user.roles()));
+  }
+
+  private RankedIndex.Range<UserRecord> range(Pageable pageable) {
+    Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+    Sort.Order leading = sort.iterator().next();
+    return sortedIndex(leading.getProperty()).range(
+        Math.toIntExact(pageable.getOffset()), pageable.getPageSize(),
+        leading.getDirection() == Sort.Direction.DESC,
+        UserRecord.sortKey(leading.getProperty()), UserRecord.comparator(sort));
+  }
+
+  private Lock lockFor(String email) {
+    int hash = Objects.hashCode(email);
+    return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+  }
+
+  private RankedIndex<UserRecord> sortedIndex(String property) {
+    return switch (property.toLowerCase()) {
+      case "name" -> nameOrder;
+      case "email" -> emailOrder;
+      default -> idOrder;
+    };
+  }
+
+  /**
+   * Latest write to an email in the mutation-sequence index; a {@code null} user is a tombstone.
+   */
+  private record Change(String email, UserRecord user) {
+  }
+}
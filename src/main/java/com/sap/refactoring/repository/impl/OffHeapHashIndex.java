@@ -0,0 +1,141 @@
+package com.sap.refactoring.repository.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash index from a UTF-8 key to a record address. Only the address and the key
+ * hash are kept, in two primitive arrays; keys are compared against the stored record itself, so
+ * the index holds no key objects. Not thread-safe: the owner serializes access.
+ */
+final class OffHeapHashIndex {
+
+  static final long MISSING = -1;
+
+  private static final long DELETED = -2;
+  private static final int MIN_CAPACITY = 16;
+
+  private final KeyMatcher matcher;
+  private long[] addresses;
+  private int[] hashes;
+  private int size;
+  private int occupied;
+
+  OffHeapHashIndex(KeyMatcher matcher) {
+    this.matcher = matcher;
+    rebuild(MIN_CAPACITY);
+  }
+
+  long get(byte[] key) {
+    int hash = hash(key);
+    int mask = addresses.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      long address = addresses[slot];
+      if (address == MISSING) {
+        return MISSING;
+      }
+      if (address != DELETED && hashes[slot] == hash && matcher.matches(address, key)) {
+        return address;
+      }
+    }
+  }
+
+  /**
+   * Points {@code key} at {@code address}. An existing entry is found by comparing the key with
+   * the record it points at, so that record must still be intact when the entry is moved.
+   */
+  void put(byte[] key, long address) {
+    if ((occupied + 1) * 4L > addresses.length * 3L) {
+      rebuild(capacityFor(size + 1));
+    }
+    int hash = hash(key);
+    int mask = addresses.length - 1;
+    int reusable = -1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      long current = addresses[slot];
+      if (current == MISSING) {
+        if (reusable < 0) {
+          reusable = slot;
+          occupied++;
+        }
+        break;
+      }
+      if (current == DELETED) {
+        if (reusable < 0) {
+          reusable = slot;
+        }
+      } else if (hashes[slot] == hash && matcher.matches(current, key)) {
+        addresses[slot] = address;
+        return;
+      }
+    }
+    addresses[reusable] = address;
+    hashes[reusable] = hash;
+    size++;
+  }
+
+  void remove(byte[] key) {
+    int hash = hash(key);
+    int mask = addresses.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      long address = addresses[slot];
+      if (address == MISSING) {
+        return;
+      }
+      if (address != DELETED && hashes[slot] == hash && matcher.matches(address, key)) {
+        addresses[slot] = DELETED;
+        size--;
+        return;
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Rehashes the live entries into a table of {@code capacity} slots, dropping tombstones. The
+   * stored hashes make this possible without reading a single key.
+   */
+  private void rebuild(int capacity) {
+    long[] oldAddresses = addresses;
+    int[] oldHashes = hashes;
+    addresses = new long[capacity];
+    hashes = new int[capacity];
+    Arrays.fill(addresses, MISSING);
+    occupied = size;
+    if (oldAddresses == null) {
+      return;
+    }
+    int mask = capacity - 1;
+    for (int i = 0; i < oldAddresses.length; i++) {
+      if (oldAddresses[i] >= 0) {
+        int slot = oldHashes[i] & mask;
+        while (addresses[slot] != MISSING) {
+          slot = (slot + 1) & mask;
+        }
+        addresses[slot] = oldAddresses[i];
+        hashes[slot] = oldHashes[i];
+      }
+    }
+  }
+
+  private static int capacityFor(int entries) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < entries * 2) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static int hash(byte[] key) {
+    int hash = Arrays.hashCode(key);
+    return hash ^ (hash >>> 16);
+  }
+
+  @FunctionalInterface
+  interface KeyMatcher {
+
+    boolean matches(long address, byte[] key);
+  }
+}
@@ -0,0 +1,148 @@
+package com.sap.refactoring.repository.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Off-heap memory for variable-length records, carved out of direct buffer slabs. Each slab serves
+ * one power-of-two slot size; freed slots go onto a per-size free list threaded through the slots
+ * themselves, so the allocator keeps no per-record objects on the heap. An address packs the slab
+ * number into the high and the offset into the low 32 bits.
+ *
+ * <p>The first four bytes of a slot hold the length of the record written into it, and zero for
+ * a free slot. Not thread-safe: the owner serializes access.
+ */
+final class OffHeapSlabs {
+
+  static final int SLAB_SIZE = 4 * 1024 * 1024;
+
+  private static final int MIN_SLOT_SHIFT = 6;
+  private static final int MAX_SLOT_SHIFT = 16;
+  private static final long NONE = -1;
+
+  /**
+   * Position returned by a bounded slot walk once every slot has been visited.
+   */
+  static final long END = -1;
+
+  private final List<Slab> slabs = new ArrayList<>();
+  private final long[] freeLists = new long[MAX_SLOT_SHIFT - MIN_SLOT_SHIFT + 1];
+  private final Slab[] filling = new Slab[MAX_SLOT_SHIFT - MIN_SLOT_SHIFT + 1];
+
+  OffHeapSlabs() {
+    Arrays.fill(freeLists, NONE);
+  }
+
+  /**
+   * Returns the address of a slot that holds at least {@code length} bytes, reusing a freed slot
+   * of the same size when there is one.
+   */
+  long allocate(int length) {
+    int sizeClass = sizeClass(length);
+    long free = freeLists[sizeClass];
+    if (free != NONE) {
+      freeLists[sizeClass] = buffer(free).getLong(offset(free) + Integer.BYTES);
+      return free;
+    }
+    Slab slab = filling[sizeClass];
+    int slotSize = 1 << (sizeClass + MIN_SLOT_SHIFT);
+    if (slab == null || slab.used + slotSize > SLAB_SIZE) {
+      slab = new Slab(slabs.size(), ByteBuffer.allocateDirect(SLAB_SIZE), slotSize);
+      slabs.add(slab);
+      filling[sizeClass] = slab;
+    }
+    long address = address(slab.number, slab.used);
+    slab.used += slotSize;
+    return address;
+  }
+
+  void free(long address) {
+    int sizeClass = sizeClass(capacity(address));
+    ByteBuffer buffer = buffer(address);
+    buffer.putInt(offset(address), 0);
+    buffer.putLong(offset(address) + Integer.BYTES, freeLists[sizeClass]);
+    freeLists[sizeClass] = address;
+  }
+
+  int capacity(long address) {
+    return slabs.get(slab(address)).slotSize;
+  }
+
+  ByteBuffer buffer(long address) {
+    return slabs.get(slab(address)).buffer;
+  }
+
+  /**
+   * Visits every slot handed out so far, free or not.
+   */
+  void forEachSlot(LongConsumer consumer) {
+    for (Slab slab : slabs) {
+      for (int offset = 0; offset < slab.used; offset += slab.slotSize) {
+        consumer.accept(address(slab.number, offset));
+      }
+    }
+  }
+
+  /**
+   * Visits at most {@code limit} slots handed out so far, free or not, starting at the slot
+   * address {@code from}, and returns the address to continue from, or {@link #END} once every
+   * slot has been visited. Slabs are only appended and filled in order, so a returned position
+   * stays valid while the owner allocates and frees in between.
+   */
+  long forEachSlot(long from, int limit, LongConsumer consumer) {
+    int visited = 0;
+    for (int number = slab(from); number < slabs.size(); number++) {
+      Slab slab = slabs.get(number);
+      int start = number == slab(from) ? offset(from) : 0;
+      for (int offset = start; offset < slab.used; offset += slab.slotSize) {
+        if (visited++ == limit) {
+          return address(number, offset);
+        }
+        consumer.accept(address(number, offset));
+      }
+    }
+    return END;
+  }
+
+  long reservedBytes() {
+    return (long) slabs.size() * SLAB_SIZE;
+  }
+
+  static int offset(long address) {
+    return (int) address;
+  }
+
+  private static int slab(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static long address(int slab, int offset) {
+    return ((long) slab << 32) | offset;
+  }
+
+  private static int sizeClass(int length) {
+    int shift = Math.max(32 - Integer.numberOfLeadingZeros(length - 1), MIN_SLOT_SHIFT);
+    if (shift > MAX_SLOT_SHIFT) {
+      throw new IllegalArgumentException(
+          "Record of " + length + " bytes exceeds the largest slot of " + (1 << MAX_SLOT_SHIFT));
+    }
+    return shift - MIN_SLOT_SHIFT;
+  }
+
+  private static final class Slab {
+
+    private final int number;
+    private final ByteBuffer buffer;
+    private final int slotSize;
+    private int used;
+
+    private Slab(int number, ByteBuffer buffer, int slotSize) {
+      this.number = number;
+      this.buffer = buffer;
+      this.slotSize = slotSize;
+    }
+  }
+}
@@ -0,0 +1,662 @@
+package com.sap.refactoring.repository.impl;
+
+import static com.sap.refactoring.repository.impl.OffHeapHashIndex.MISSING;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserRepository;
+import com.sap.refactoring.repository.UserSyncBatch;
+import com.sap.refactoring.util.Constants;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keeps users serialized in off-heap slabs, so the Java heap only holds the slab buffers, two
+ * primitive hash tables for email and name, and the role dictionary, however many users there
+ * are. Point reads and writes go through the hash indexes; ordered and role-filtered listings
+ * scan the slabs and keep only the requested window on the heap, so their garbage is short-lived.
+ * A read-write lock serializes writers against each other and against readers. Every write
+ * stamps the record with the next mutation sequence and every deletion leaves a tombstone on the
+ * heap until the email is taken again, so incremental syncs scan for sequences past a token. At
+ * most {@value #MAX_TOMBSTONES} tombstones are kept; once the oldest is dropped, tokens from
+ * before it expire and their clients start a full sync.
+ *
+ * <p>Record layout: length (int), version (long), id (two longs), sequence (long), email and name
+ * as length (int, -1 for null) plus UTF-8 bytes, role count (short) and role ids (int, -1 for
+ * null).
+ */
+@Repository
+@Profile("off_heap")
+public class OffHeapUserRepository implements UserRepository {
+
+  private static final int VERSION = Integer.BYTES;
+  private static final int ID = VERSION + Long.BYTES;
+  private static final int SEQUENCE = ID + 2 * Long.BYTES;
+  private static final int EMAIL = SEQUENCE + Long.BYTES;
+
+  static final int MAX_TOMBSTONES = 100_000;
+  private static final int STREAM_CHUNK_SLOTS = 1024;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final OffHeapSlabs slabs = new OffHeapSlabs();
+  private final OffHeapHashIndex emailIndex = new OffHeapHashIndex(this::emailMatches);
+  private final OffHeapHashIndex nameIndex = new OffHeapHashIndex(this::nameMatches);
+  private final List<String> roleNames = new ArrayList<>();
+  private final Map<String, Integer> roleIds = new HashMap<>();
+  private final NavigableMap<Long, String> tombstones = new TreeMap<>();
+  private final Map<String, Long> tombstoneSequences = new HashMap<>();
+  private final long epoch = ThreadLocalRandom.current().nextLong();
+  private final int maxTombstones;
+  private long purgedSequence;
+  private long lastSequence;
+  private int size;
+
+  public OffHeapUserRepository() {
+    this(MAX_TOMBSTONES);
+  }
+
+  public OffHeapUserRepository(int maxTombstones) {
+    this.maxTombstones = maxTombstones;
+  }
+
+  @Override
+  public User save(User user) {
+    lock.writeLock().lock();
+    try {
+      long existing = user.getEmail() == null ? MISSING : emailIndex.get(utf8(user.getEmail()));
+      if (existing == MISSING) {
+        return store(MISSING, UserRecord.of(UUID.randomUUID(), 0, user)).toUser();
+      }
+      long version = version(existing);
+      if (user.getVersion() != null && user.getVersion() != version) {
+        throw new OptimisticLockingFailureException(String.format(
+            Constants.USER_VERSION_MISMATCH_ERR_MSG, user.getEmail(), user.getVersion()));
+      }
+      return store(existing, UserRecord.of(id(existing), version + 1, user)).toUser();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public User insert(User user) {
+    lock.writeLock().lock();
+    try {
+      if (user.getEmail() != null && emailIndex.get(utf8(user.getEmail())) != MISSING) {
+        throw new EntityAlreadyExistsException(
+            String.format(Constants.USER_ALREADY_EXISTS_BY_EMAIL_ERR_MSG, user.getEmail()));
+      }
+      return store(MISSING, UserRecord.of(UUID.randomUUID(), 0, user)).toUser();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Optional<User> update(User user, Long expectedVersion) {
+    if (user.getEmail() == null) {
+      return Optional.empty();
+    }
+    lock.writeLock().lock();
+    try {
+      long existing = emailIndex.get(utf8(user.getEmail()));
+      if (existing == MISSING
+          || (expectedVersion != null && version(existing) != expectedVersion)) {
+        return Optional.empty();
+      }
+      UserRecord updated = UserRecord.of(id(existing), version(existing) + 1, user);
+      return Optional.of(store(existing, updated).toUser());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<User> saveAll(List<User> users) {
+    return users.stream()
+        .map(this::save)
+        .toList();
+  }
+
+  @Override
+  public void flushAndClear() {
+    // records are stored on write, nothing is held per caller
+  }
+
+  @Override
+  public Optional<User> findByEmail(String email) {
+    return findRecord(email).map(UserRecord::toUser);
+  }
+
+  @Override
+  public List<User> findAllByEmailIn(Collection<String> emails) {
+    return emails.stream()
+        .map(this::findRecord)
+        .flatMap(Optional::stream)
+        .map(UserRecord::toUser)
+        .toList();
+  }
+
+  @Override
+  public List<User> findAll() {
+    List<User> users = new ArrayList<>();
+    scan(user -> users.add(user.toUser()));
+    return users;
+  }
+
+  /**
+   * Decodes the slabs {@value #STREAM_CHUNK_SLOTS} slots at a time, taking the read lock once per
+   * chunk, so only one chunk of users is on the heap while the caller consumes the stream. Writes
+   * between chunks are not isolated from it: a user moved to another slot meanwhile can be
+   * missed or seen twice.
+   */
+  @Override
+  public Stream<User> streamAll() {
+    return Stream.iterate(readChunk(0), chunk -> chunk != null,
+            chunk -> chunk.next() == OffHeapSlabs.END ? null : readChunk(chunk.next()))
+        .flatMap(chunk -> chunk.users().stream());
+  }
+
+  @Override
+  public Page<User> findAll(Pageable pageable) {
+    return page(user -> true, pageable).map(UserRecord::toUser);
+  }
+
+  @Override
+  public Optional<UserResponse> findResponseByEmail(String email) {
+    return findRecord(email).map(UserRecord::toResponse);
+  }
+
+  @Override
+  public List<UserResponse> findAllResponses() {
+    List<UserResponse> users = new ArrayList<>();
+    scan(user -> users.add(user.toResponse()));
+    return users;
+  }
+
+  @Override
+  public Page<UserResponse> findAllResponses(Pageable pageable) {
+    return page(user -> true, pageable).map(UserRecord::toResponse);
+  }
+
+  @Override
+  public List<UserResponse> findResponsesByRoles(RoleFilter roles) {
+    List<UserResponse> users = new ArrayList<>();
+    scan(user -> {
+      if (roles.matches(user.roles())) {
+        users.add(user.toResponse());
+      }
+    });
+    return users;
+  }
+
+  @Override
+  public Page<UserResponse> findResponsesByRoles(RoleFilter roles, Pageable pageable) {
+    return page(user -> roles.matches(user.roles()), pageable).map(UserRecord::toResponse);
+  }
+
+  @Override
+  public Slice<User> findAllAfter(KeysetCursor cursor, Sort.Order order, int size) {
+    Comparator<UserRecord> indexOrder = UserRecord.indexOrder(order.getProperty());
+    Comparator<UserRecord> comparator =
+        order.isDescending() ? indexOrder.reversed() : indexOrder;
+    UserRecord probe = cursor == null ? null : UserRecord.probe(cursor, order.getProperty());
+
+    TopK<UserRecord> window = new TopK<>(comparator, size + 1);
+    scan(user -> {
+      if (probe == null || comparator.compare(user, probe) > 0) {
+        window.offer(user);
+      }
+    });
+    List<UserRecord> records = window.sorted();
+    boolean hasNext = records.size() > size;
+    List<User> content = records.stream()
+        .limit(size)
+        .map(UserRecord::toUser)
+        .toList();
+    return new SliceImpl<>(content, Pageable.ofSize(size), hasNext);
+  }
+
+  /**
+   * Scans the slabs for records stamped after the token, keeping only the next window by
+   * sequence on the heap, and merges in the tombstones past it. Each email holds either a record
+   * or a tombstone, so every email shows up once.
+   */
+  @Override
+  public UserSyncBatch findChangedSince(SyncToken since, int limit) {
+    lock.readLock().lock();
+    try {
+      long after = since == null ? 0 : since.after(epoch, purgedSequence, lastSequence);
+      TopK<long[]> window =
+          new TopK<>(Comparator.<long[]>comparingLong(change -> change[0]), limit + 1);
+      slabs.forEachSlot(address -> {
+        if (slabs.buffer(address).getInt(OffHeapSlabs.offset(address)) > 0
+            && sequence(address) > after) {
+          window.offer(new long[]{sequence(address), address});
+        }
+      });
+      if (since != null) {
+        tombstones.tailMap(after, false).keySet().stream()
+            .limit(limit + 1L)
+            .forEach(sequence -> window.offer(new long[]{sequence, MISSING}));
+      }
+      List<long[]> changes = window.sorted();
+      List<UserResponse> users = new ArrayList<>();
+      List<String> deleted = new ArrayList<>();
+      long next = after;
+      for (long[] change : changes.subList(0, Math.min(limit, changes.size()))) {
+        next = change[0];
+        if (change[1] == MISSING) {
+          deleted.add(tombstones.get(change[0]));
+        } else {
+          users.add(read(change[1]).toResponse());
+        }
+      }
+      return new UserSyncBatch(users, deleted, new SyncToken(epoch, next),
+          changes.size() > limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public SyncToken lastChange() {
+    lock.readLock().lock();
+    try {
+      return new SyncToken(epoch, lastSequence);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void deleteByEmail(String email) {
+    if (email == null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      byte[] key = utf8(email);
+      long address = emailIndex.get(key);
+      if (address == MISSING) {
+        return;
+      }
+      byte[] name = name(address);
+      if (name != null) {
+        nameIndex.remove(name);
+      }
+      emailIndex.remove(key);
+      slabs.free(address);
+      size--;
+      long sequence = ++lastSequence;
+      tombstones.put(sequence, email);
+      tombstoneSequences.put(email, sequence);
+      if (tombstones.size() > maxTombstones) {
+        Map.Entry<Long, String> oldest = tombstones.pollFirstEntry();
+        tombstoneSequences.remove(oldest.getValue());
+        purgedSequence = oldest.getKey();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean existsByEmail(String email) {
+    return email != null && contains(emailIndex, email);
+  }
+
+  @Override
+  public boolean existsByName(String name) {
+    return name != null && contains(nameIndex, name);
+  }
+
+  @Override
+  public List<String> findExistingNames(Collection<String> names) {
+    return names.stream()
+        .filter(this::existsByName)
+        .toList();
+  }
+
+  /**
+   * Number of stored users.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Off-heap bytes reserved by the slabs, including free slots.
+   */
+  public long reservedBytes() {
+    lock.readLock().lock();
+    try {
+      return slabs.reservedBytes();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes {@code current} over {@code previous} (or into a new slot, for a new user) and moves
+   * the index entries. The record is rewritten in place while it fits its slot and moved
+   * otherwise; the name is checked first, so a conflict leaves the store untouched. The caller
+   * holds the write lock.
+   */
+  private UserRecord store(long previous, UserRecord current) {
+    byte[] email = utf8(current.email());
+    byte[] name = utf8(current.name());
+    if (name != null) {
+      long owner = nameIndex.get(name);
+      if (owner != MISSING && owner != previous) {
+        throw new EntityAlreadyExistsException(
+            String.format(Constants.USER_ALREADY_EXISTS_BY_NAME_ERR_MSG, current.name()));
+      }
+    }
+    int[] roles = roleIds(current.roles());
+    int length = EMAIL + 2 * Integer.BYTES + length(email) + length(name)
+        + Short.BYTES + roles.length * Integer.BYTES;
+
+    if (previous != MISSING) {
+      // the entry is found by comparing with the old record, so drop it before overwriting
+      byte[] previousName = name(previous);
+      if (previousName != null) {
+        nameIndex.remove(previousName);
+      }
+    }
+    long address = previous != MISSING && slabs.capacity(previous) >= length
+        ? previous
+        : slabs.allocate(length);
+    write(address, length, current, ++lastSequence, email, name, roles);
+    if (email != null) {
+      emailIndex.put(email, address);
+    }
+    if (previous == MISSING && current.email() != null) {
+      Long tombstone = tombstoneSequences.remove(current.email());
+      if (tombstone != null) {
+        tombstones.remove(tombstone);
+      }
+    }
+    if (name != null) {
+      nameIndex.put(name, address);
+    }
+    if (previous == MISSING) {
+      size++;
+    } else if (address != previous) {
+      slabs.free(previous);
+    }
+    return current;
+  }
+
+  private void write(long address, int length, UserRecord user, long sequence, byte[] email,
+      byte[] name, int[] roles) {
+    ByteBuffer buffer = slabs.buffer(address);
+    int offset = OffHeapSlabs.offset(address);
+    buffer.putInt(offset, length);
+    buffer.putLong(offset + VERSION, user.version());
+    buffer.putLong(offset + ID, user.id().getMostSignificantBits());
+    buffer.putLong(offset + ID + Long.BYTES, user.id().getLeastSignificantBits());
+    buffer.putLong(offset + SEQUENCE, sequence);
+    int position = putBytes(buffer, offset + EMAIL, email);
+    position = putBytes(buffer, position, name);
+    buffer.putShort(position, (short) roles.length);
+    position += Short.BYTES;
+    for (int role : roles) {
+      buffer.putInt(position, role);
+      position += Integer.BYTES;
+    }
+  }
+
+  private UserRecord read(long address) {
+    ByteBuffer buffer = slabs.buffer(address);
+    int offset = OffHeapSlabs.offset(address);
+    int position = offset + EMAIL;
+    byte[] email = getBytes(buffer, position);
+    position += Integer.BYTES + length(email);
+    byte[] name = getBytes(buffer, position);
+    position += Integer.BYTES + length(name);
+    int count = buffer.getShort(position);
+    position += Short.BYTES;
+    List<String> roles = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int role = buffer.getInt(position + i * Integer.BYTES);
+      roles.add(role < 0 ? null : roleNames.get(role));
+    }
+    return new UserRecord(id(address), string(name), string(email),
+        RoleDictionary.canonical(roles), version(address));
+  }
+
+  private Optional<UserRecord> findRecord(String email) {
+    if (email == null) {
+      return Optional.empty();
+    }
+    lock.readLock().lock();
+    try {
+      long address = emailIndex.get(utf8(email));
+      return address == MISSING ? Optional.empty() : Optional.of(read(address));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private boolean contains(OffHeapHashIndex index, String key) {
+    lock.readLock().lock();
+    try {
+      return index.get(utf8(key)) != MISSING;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Chunk readChunk(long from) {
+    lock.readLock().lock();
+    try {
+      List<User> users = new ArrayList<>();
+      long next = slabs.forEachSlot(from, STREAM_CHUNK_SLOTS, address -> {
+        if (slabs.buffer(address).getInt(OffHeapSlabs.offset(address)) > 0) {
+          users.add(read(address).toUser());
+        }
+      });
+      return new Chunk(users, next);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Decodes every stored record in slab order under the read lock.
+   */
+  private void scan(Consumer<UserRecord> consumer) {
+    lock.readLock().lock();
+    try {
+      slabs.forEachSlot(address -> {
+        if (slabs.buffer(address).getInt(OffHeapSlabs.offset(address)) > 0) {
+          consumer.accept(read(address));
+        }
+      });
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Page<UserRecord> page(Predicate<UserRecord> filter, Pageable pageable) {
+    Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+    TopK<UserRecord> window = new TopK<>(UserRecord.comparator(sort),
+        Math.toIntExact(pageable.getOffset()) + pageable.getPageSize());
+    long[] total = new long[1];
+    scan(user -> {
+      if (filter.test(user)) {
+        total[0]++;
+        window.offer(user);
+      }
+    });
+    List<UserRecord> content = window.sorted().stream()
+        .skip(pageable.getOffset())
+        .toList();
+    return new PageImpl<>(content, pageable, total[0]);
+  }
+
+  private long version(long address) {
+    return slabs.buffer(address).getLong(OffHeapSlabs.offset(address) + VERSION);
+  }
+
+  private long sequence(long address) {
+    return slabs.buffer(address).getLong(OffHeapSlabs.offset(address) + SEQUENCE);
+  }
+
+  private UUID id(long address) {
+    ByteBuffer buffer = slabs.buffer(address);
+    int offset = OffHeapSlabs.offset(address);
+    return new UUID(buffer.getLong(offset + ID), buffer.getLong(offset + ID + Long.BYTES));
+  }
+
+  private byte[] name(long address) {
+    ByteBuffer buffer = slabs.buffer(address);
+    int position = OffHeapSlabs.offset(address) + EMAIL;
+    return getBytes(buffer, position + Integer.BYTES + Math.max(buffer.getInt(position), 0));
+  }
+
+  private boolean emailMatches(long address, byte[] key) {
+    return matches(slabs.buffer(address), OffHeapSlabs.offset(address) + EMAIL, key);
+  }
+
+  private boolean nameMatches(long address, byte[] key) {
+    ByteBuffer buffer = slabs.buffer(address);
+    int position = OffHeapSlabs.offset(address) + EMAIL;
+    return matches(buffer, position + Integer.BYTES + Math.max(buffer.getInt(position), 0), key);
+  }
+
+  private int[] roleIds(List<String> roles) {
+    int[] ids = new int[roles.size()];
+    for (int i = 0; i < ids.length; i++) {
+      String role = roles.get(i);
+      ids[i] = role == null ? -1 : roleIds.computeIfAbsent(role, key -> {
+        roleNames.add(key);
+        return roleNames.size() - 1;
+      });
+    }
+    return ids;
+  }
+
+  private static boolean matches(ByteBuffer buffer, int position, byte[] key) {
+    if (buffer.getInt(position) != key.length) {
+      return false;
+    }
+    int start = position + Integer.BYTES;
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(start + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int putBytes(ByteBuffer buffer, int position, byte[] bytes) {
+    if (bytes == null) {
+      buffer.putInt(position, -1);
+      return position + Integer.BYTES;
+    }
+    buffer.putInt(position, bytes.length);
+    buffer.put(position + Integer.BYTES, bytes);
+    return position + Integer.BYTES + bytes.length;
+  }
+
+  private static byte[] getBytes(ByteBuffer buffer, int position) {
+    int length = buffer.getInt(position);
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(position + Integer.BYTES, bytes);
+    return bytes;
+  }
+
+  private static int length(byte[] bytes) {
+    return bytes == null ? 0 : bytes.length;
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String string(byte[] bytes) {
+    return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Users decoded from one run of slots, and the slot address to continue from.
+   */
+  private record Chunk(List<User> users, long next) {
+
+  }
+
+  /**
+   * The first {@code limit} elements in {@code order}, kept in a bounded heap whose head is the
+   * current worst candidate.
+   */
+  private static final class TopK<T> {
+
+    private final Comparator<T> order;
+    private final int limit;
+    private final PriorityQueue<T> heap;
+
+    private TopK(Comparator<T> order, int limit) {
+      this.order = order;
+      this.limit = limit;
+      this.heap = new PriorityQueue<>(order.reversed());
+    }
+
+    private void offer(T element) {
+      if (limit <= 0) {
+        return;
+      }
+      if (heap.size() < limit) {
+        heap.add(element);
+      } else if (order.compare(element, heap.peek()) < 0) {
+        heap.poll();
+        heap.add(element);
+      }
+    }
+
+    private List<T> sorted() {
+      List<T> sorted = new ArrayList<>(heap);
+      sorted.sort(order);
+      return sorted;
+    }
+  }
+}
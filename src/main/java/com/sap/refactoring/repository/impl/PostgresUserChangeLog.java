@@ -0,0 +1,119 @@
+package com.sap.refactoring.repository.impl;
+
+import com.sap.refactoring.dto.response.UserChangeEvent;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.ChangesExpiredException;
+import com.sap.refactoring.repository.UserChangeLog;
+import com.sap.refactoring.util.Constants;
+import jakarta.persistence.EntityManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Transactional outbox: changes are inserted into {@code user_changes} in the transaction of the
+ * write, so they commit or roll back with it. Writers take no shared lock: their rows commit
+ * without a sequence and {@link UserChangeRelay} numbers them after the commit, so a reader never
+ * sees a sequence while a lower one is still uncommitted. Readers poll the table. The relay keeps
+ * the latest changes only; a reader from before the dropped ones has to resynchronize.
+ */
+@RequiredArgsConstructor
+public class PostgresUserChangeLog implements UserChangeLog {
+
+  private static final String INSERT_CHANGE = """
+      INSERT INTO user_changes (type, email, name, roles, version)
+      VALUES (?, ?, ?, ?, ?)""";
+
+  private static final String SELECT_AFTER = """
+      SELECT sequence, type, email, name, roles, version, occurred_at FROM user_changes
+      WHERE sequence > ?
+      ORDER BY sequence
+      LIMIT ?""";
+
+  // the relay's watermark: every later change is numbered above it
+  private static final String SELECT_LAST = "SELECT published FROM user_change_relay";
+
+  private static final String SELECT_PURGED = "SELECT changes_purged FROM user_change_relay";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManager entityManager;
+  private final UserChangeRelay userChangeRelay;
+  private final Duration pollInterval;
+
+  @Override
+  public <T> T record(Collection<String> emails, Supplier<T> write,
+      Function<? super T, List<Change>> changes) {
+    T result = write.get();
+    List<Change> recorded = changes.apply(result);
+    if (!recorded.isEmpty()) {
+      // pending entity updates get their new version on flush
+      entityManager.flush();
+      jdbcTemplate.batchUpdate(INSERT_CHANGE, recorded, recorded.size(), (statement, change) -> {
+        User user = change.user();
+        statement.setString(1, change.type().name());
+        statement.setString(2, change.email());
+        if (user == null) {
+          statement.setNull(3, Types.VARCHAR);
+          statement.setNull(4, Types.ARRAY);
+          statement.setNull(5, Types.BIGINT);
+        } else {
+          statement.setString(3, user.getName());
+          statement.setArray(4,
+              statement.getConnection().createArrayOf("text", user.getRoles().toArray()));
+          statement.setLong(5, user.getVersion());
+        }
+      });
+      userChangeRelay.publishAfterCommit();
+    }
+    return result;
+  }
+
+  @Override
+  public List<UserChangeEvent> findAfter(long after, int limit, Duration wait) {
+    long deadline = System.nanoTime() + wait.toNanos();
+    while (true) {
+      List<UserChangeEvent> events = jdbcTemplate.query(SELECT_AFTER,
+          PostgresUserChangeLog::toEvent, after, limit);
+      // read after the changes: a prune that dropped any of them has committed its floor too
+      Long purged = jdbcTemplate.queryForObject(SELECT_PURGED, Long.class);
+      if (purged != null && after < purged) {
+        throw new ChangesExpiredException(
+            String.format(Constants.USER_CHANGES_EXPIRED_ERR_MSG, after));
+      }
+      long remaining = deadline - System.nanoTime();
+      if (!events.isEmpty() || remaining <= 0) {
+        return events;
+      }
+      try {
+        Thread.sleep(Duration.ofNanos(Math.min(remaining, pollInterval.toNanos())));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return List.of();
+      }
+    }
+  }
+
+  @Override
+  public long lastSequence() {
+    return jdbcTemplate.queryForObject(SELECT_LAST, Long.class);
+  }
+
+  private static UserChangeEvent toEvent(ResultSet row, int rowNumber) throws SQLException {
+    UserChangeEvent.Type type = UserChangeEvent.Type.valueOf(row.getString("type"));
+    String email = row.getString("email");
+    UserResponse user = type == UserChangeEvent.Type.DELETED ? null : new UserResponse(
+        row.getString("name"), email,
+        Arrays.asList((String[]) row.getArray("roles").getArray()), row.getLong("version"));
+    return new UserChangeEvent(row.getLong("sequence"), type, email, user,
+        row.getTimestamp("occurred_at").toInstant());
+  }
+}
@@ -1,20 +1,102 @@
 package com.sap.refactoring.repository.impl;
 
+import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.KeysetCursor;
 import com.sap.refactoring.repository.UserRepository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 @Profile("postgres")
-public interface PostgresUserRepository extends JpaRepository<User, UUID>, UserRepository {
+public interface PostgresUserRepository extends JpaRepository<User, UUID>, UserRepository,
+    PostgresUserRepositoryCustom {
 
   Optional<User> findByEmail(String email);
 
+  List<User> findAllByEmailIn(Collection<String> emails);
+
   boolean existsByEmail(String email);
 
   boolean existsByName(String name);
-}
 
+  @Query("select u.name from User u where u.name in :names")
+  List<String> findExistingNames(@Param("names") Collection<String> names);
+
+  // constructor expressions return plain DTOs: nothing enters the persistence context and no
+  // dirty-checking snapshot is taken
+  @Query("select new com.sap.refactoring.dto.response.UserResponse(u.name, u.email, u.roles, "
+      + "u.version) from User u where u.email = :email")
+  Optional<UserResponse> findResponseByEmail(@Param("email") String email);
+
+  @Query("select new com.sap.refactoring.dto.response.UserResponse(u.name, u.email, u.roles, "
+      + "u.version) from User u")
+  List<UserResponse> findAllResponses();
+
+  @Query(value = "select new com.sap.refactoring.dto.response.UserResponse(u.name, u.email, "
+      + "u.roles, u.version) from User u",
+      countQuery = "select count(u) from User u")
+  Page<UserResponse> findAllResponses(Pageable pageable);
+
+  @Override
+  default List<User> saveAll(List<User> users) {
+    return saveAll((Iterable<User>) users);
+  }
+
+  @Override
+  default Slice<User> findAllAfter(KeysetCursor cursor, Sort.Order order, int size) {
+    if (cursor == null) {
+      return findSliceBy(PageRequest.of(0, size,
+          Sort.by(order, new Sort.Order(order.getDirection(), "id"))));
+    }
+    Pageable limit = PageRequest.ofSize(size);
+    boolean descending = order.isDescending();
+    return switch (order.getProperty()) {
+      case "name" -> descending
+          ? findSliceByNameBefore(cursor.value(), cursor.id(), limit)
+          : findSliceByNameAfter(cursor.value(), cursor.id(), limit);
+      case "email" -> descending
+          ? findSliceByEmailBefore(cursor.value(), limit)
+          : findSliceByEmailAfter(cursor.value(), limit);
+      default -> descending
+          ? findSliceByIdBefore(cursor.id(), limit)
+          : findSliceByIdAfter(cursor.id(), limit);
+    };
+  }
 
+  @Query("select u from User u")
+  Slice<User> findSliceBy(Pageable pageable);
+
+  // the leading range predicate keeps idx_users_name usable; id breaks ties between equal names
+  @Query("select u from User u where u.name >= :name and (u.name > :name or u.id > :id) "
+      + "order by u.name asc, u.id asc")
+  Slice<User> findSliceByNameAfter(@Param("name") String name, @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("select u from User u where u.name <= :name and (u.name < :name or u.id < :id) "
+      + "order by u.name desc, u.id desc")
+  Slice<User> findSliceByNameBefore(@Param("name") String name, @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("select u from User u where u.email > :email order by u.email asc")
+  Slice<User> findSliceByEmailAfter(@Param("email") String email, Pageable pageable);
+
+  @Query("select u from User u where u.email < :email order by u.email desc")
+  Slice<User> findSliceByEmailBefore(@Param("email") String email, Pageable pageable);
+
+  @Query("select u from User u where u.id > :id order by u.id asc")
+  Slice<User> findSliceByIdAfter(@Param("id") UUID id, Pageable pageable);
+
+  @Query("select u from User u where u.id < :id order by u.id desc")
+  Slice<User> findSliceByIdBefore(@Param("id") UUID id, Pageable pageable);
+}
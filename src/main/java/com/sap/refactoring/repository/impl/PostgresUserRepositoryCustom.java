@@ -0,0 +1,31 @@
+package com.sap.refactoring.repository.impl;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserSyncBatch;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface PostgresUserRepositoryCustom {
+
+  User insert(User user);
+
+  Optional<User> update(User user, Long expectedVersion);
+
+  Stream<User> streamAll();
+
+  void flushAndClear();
+
+  List<UserResponse> findResponsesByRoles(RoleFilter roles);
+
+  Page<UserResponse> findResponsesByRoles(RoleFilter roles, Pageable pageable);
+
+  UserSyncBatch findChangedSince(SyncToken since, int limit);
+
+  SyncToken lastChange();
+}
@@ -0,0 +1,276 @@
+package com.sap.refactoring.repository.impl;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserSyncBatch;
+import com.sap.refactoring.util.Constants;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+@RequiredArgsConstructor
+public class PostgresUserRepositoryCustomImpl implements PostgresUserRepositoryCustom {
+
+  private static final String UPDATE_USER = """
+      UPDATE users SET name = ?, roles = ?, version = version + 1
+      WHERE email = ?
+      RETURNING id, version""";
+
+  private static final String UPDATE_USER_IF_VERSION = """
+      UPDATE users SET name = ?, roles = ?, version = version + 1
+      WHERE email = ? AND version = ?
+      RETURNING id, version""";
+
+  // @> (contains all) and && (overlaps) are both served by the GIN index on roles
+  private static final String SELECT_BY_ROLES = """
+      SELECT name, email, roles, version FROM users
+      WHERE roles %s CAST(ARRAY[:roles] AS text[])""";
+
+  private static final String COUNT_BY_ROLES = """
+      SELECT count(*) FROM users
+      WHERE roles %s CAST(ARRAY[:roles] AS text[])""";
+
+  // one statement reads both tables in one snapshot; each branch walks its change_seq index and
+  // the union is merged in sequence order
+  private static final String SELECT_CHANGED_SINCE = """
+      SELECT change_seq, email, name, roles, version, false AS deleted FROM users
+      WHERE change_seq > :after
+      UNION ALL
+      SELECT change_seq, email, NULL, NULL, NULL, true FROM user_tombstones
+      WHERE change_seq > :after AND :tombstones
+      ORDER BY change_seq
+      LIMIT :limit""";
+
+  // the relay's watermark: every change published later is numbered above it
+  private static final String SELECT_LAST_CHANGE = "SELECT published FROM user_change_relay";
+
+  private static final String SELECT_TOMBSTONES_PURGED =
+      "SELECT tombstones_purged FROM user_change_relay";
+
+  // the sequence lives in the database and survives restarts, so tokens carry a fixed epoch
+  private static final long SYNC_EPOCH = 0;
+
+  private final EntityManager entityManager;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Override
+  public User insert(User user) {
+    try {
+      entityManager.persist(user);
+      entityManager.flush();
+      return user;
+    } catch (PersistenceException ex) {
+      throw translate(ex, user);
+    }
+  }
+
+  @Override
+  public Optional<User> update(User user, Long expectedVersion) {
+    // the version check and the write are one statement, so no row is read or locked up front
+    entityManager.flush();
+    Optional<User> updated;
+    try {
+      updated = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+        try (PreparedStatement statement = connection.prepareStatement(
+            expectedVersion == null ? UPDATE_USER : UPDATE_USER_IF_VERSION)) {
+          statement.setString(1, user.getName());
+          statement.setArray(2, connection.createArrayOf("text", user.getRoles().toArray()));
+          statement.setString(3, user.getEmail());
+          if (expectedVersion != null) {
+            statement.setLong(4, expectedVersion);
+          }
+          try (ResultSet row = statement.executeQuery()) {
+            if (!row.next()) {
+              return Optional.empty();
+            }
+            return Optional.of(User.builder()
+                .id(row.getObject(1, UUID.class))
+                .name(user.getName())
+                .email(user.getEmail())
+                .roles(new ArrayList<>(user.getRoles()))
+                .version(row.getLong(2))
+                .build());
+          }
+        }
+      });
+    } catch (PersistenceException ex) {
+      throw translate(ex, user);
+    }
+    // the statement bypassed the persistence context, so a copy loaded earlier in the same
+    // transaction is stale; detaching it makes later reads go to the database
+    updated.ifPresent(row ->
+        entityManager.detach(entityManager.getReference(User.class, row.getId())));
+    return updated;
+  }
+
+  @Override
+  public void flushAndClear() {
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Override
+  public Stream<User> streamAll() {
+    // rows are pulled through a server-side cursor and detached one by one, so neither the
+    // result set nor the persistence context grows with the table
+    return entityManager.createQuery("select u from User u", User.class)
+        .setHint(AvailableHints.HINT_FETCH_SIZE, Constants.EXPORT_FETCH_SIZE)
+        .setHint(AvailableHints.HINT_READ_ONLY, true)
+        .getResultStream()
+        .map(user -> {
+          entityManager.detach(user);
+          return user;
+        });
+  }
+
+  @Override
+  public List<UserResponse> findResponsesByRoles(RoleFilter roles) {
+    return jdbcTemplate.query(SELECT_BY_ROLES.formatted(operator(roles)), parameters(roles),
+        PostgresUserRepositoryCustomImpl::toResponse);
+  }
+
+  @Override
+  public Page<UserResponse> findResponsesByRoles(RoleFilter roles, Pageable pageable) {
+    Map<String, Object> parameters = parameters(roles);
+    parameters.put("limit", pageable.getPageSize());
+    parameters.put("offset", pageable.getOffset());
+    List<UserResponse> content = jdbcTemplate.query(SELECT_BY_ROLES.formatted(operator(roles))
+            + orderBy(pageable.getSort()) + " LIMIT :limit OFFSET :offset",
+        parameters, PostgresUserRepositoryCustomImpl::toResponse);
+    Long total = jdbcTemplate.queryForObject(COUNT_BY_ROLES.formatted(operator(roles)),
+        parameters, Long.class);
+    return new PageImpl<>(content, pageable, total == null ? 0 : total);
+  }
+
+  /**
+   * Rows get their change sequence from the relay after they commit, so sequences are handed out
+   * in commit order and a reader never sees a sequence before a lower one. Rows written since the
+   * last pass are not returned yet; they are numbered above every token issued so far. A token
+   * from before the oldest kept tombstone expires.
+   */
+  @Override
+  public UserSyncBatch findChangedSince(SyncToken since, int limit) {
+    long after = since == null ? 0 : since.after(SYNC_EPOCH, Long.MAX_VALUE);
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("after", after);
+    parameters.put("tombstones", since != null);
+    parameters.put("limit", limit + 1);
+    List<UserResponse> users = new ArrayList<>();
+    List<String> deleted = new ArrayList<>();
+    long[] next = {after};
+    int[] rows = {0};
+    jdbcTemplate.query(SELECT_CHANGED_SINCE, parameters, row -> {
+      if (++rows[0] > limit) {
+        return;
+      }
+      next[0] = row.getLong("change_seq");
+      if (row.getBoolean("deleted")) {
+        deleted.add(row.getString("email"));
+      } else {
+        users.add(toResponse(row, rows[0]));
+      }
+    });
+    if (since != null) {
+      // read after the changes: a prune that dropped any of them has committed its floor too
+      Long purged = jdbcTemplate.getJdbcTemplate()
+          .queryForObject(SELECT_TOMBSTONES_PURGED, Long.class);
+      since.after(SYNC_EPOCH, purged == null ? 0 : purged, Long.MAX_VALUE);
+    }
+    return new UserSyncBatch(users, deleted, new SyncToken(SYNC_EPOCH, next[0]),
+        rows[0] > limit);
+  }
+
+  /**
+   * Only published rows count, and sequences are handed out in commit order, so a read that
+   * starts after this one sees every change the token covers.
+   */
+  @Override
+  public SyncToken lastChange() {
+    Long sequence = jdbcTemplate.getJdbcTemplate().queryForObject(SELECT_LAST_CHANGE, Long.class);
+    return new SyncToken(SYNC_EPOCH, sequence == null ? 0 : sequence);
+  }
+
+  private static String operator(RoleFilter roles) {
+    return roles.matchAll() ? "@>" : "&&";
+  }
+
+  private static Map<String, Object> parameters(RoleFilter roles) {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("roles", List.copyOf(roles.roles()));
+    return parameters;
+  }
+
+  /**
+   * Sort properties are limited to id, name and email by the request validation; anything else
+   * falls back to id. The id always breaks ties so pages are stable.
+   */
+  private static String orderBy(Sort sort) {
+    String columns = sort.stream()
+        .map(order -> column(order.getProperty()) + (order.isDescending() ? " DESC" : " ASC"))
+        .collect(Collectors.joining(", "));
+    return columns.isEmpty() ? " ORDER BY id" : " ORDER BY " + columns + ", id";
+  }
+
+  private static String column(String property) {
+    return switch (property.toLowerCase()) {
+      case "name" -> "name";
+      case "email" -> "email";
+      default -> "id";
+    };
+  }
+
+  private static UserResponse toResponse(ResultSet row, int rowNum) throws SQLException {
+    String[] roles = (String[]) row.getArray("roles").getArray();
+    // Arrays.asList keeps null elements, which List.of would reject
+    return new UserResponse(row.getString("name"), row.getString("email"), Arrays.asList(roles),
+        row.getLong("version"));
+  }
+
+  private static RuntimeException translate(PersistenceException ex, User user) {
+    ConstraintViolationException violation = findConstraintViolation(ex);
+    if (violation == null) {
+      return ex;
+    }
+    if (Constants.USERS_EMAIL_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName())) {
+      return new EntityAlreadyExistsException(
+          String.format(Constants.USER_ALREADY_EXISTS_BY_EMAIL_ERR_MSG, user.getEmail()));
+    }
+    if (Constants.USERS_NAME_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName())) {
+      return new EntityAlreadyExistsException(
+          String.format(Constants.USER_ALREADY_EXISTS_BY_NAME_ERR_MSG, user.getName()));
+    }
+    return ex;
+  }
+
+  private static ConstraintViolationException findConstraintViolation(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException violation) {
+        return violation;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,198 @@
+package com.sap.refactoring.repository.impl;
+
+import com.sap.refactoring.dto.response.UserChangeEvent;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.ReactiveUserRepository;
+import com.sap.refactoring.util.Constants;
+import io.r2dbc.spi.Readable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class R2dbcUserRepository implements ReactiveUserRepository {
+
+  private static final String COLUMNS = "id, name, email, roles, version";
+
+  // every write is one statement, so it runs in its own transaction and records the change in
+  // the outbox, as the servlet profiles do through PostgresUserChangeLog. Once it has committed,
+  // a publish pass numbers its rows, as UserChangeRelay does for the servlet profiles
+  private static final String PUBLISH = "SELECT publish_user_changes(:batch)";
+
+  private static final String RECORD_CHANGE = """
+      recorded AS (
+        INSERT INTO user_changes (type, email, name, roles, version)
+        SELECT :type, email, name, roles, version FROM written)
+      SELECT\s""" + COLUMNS + " FROM written";
+
+  // no conflict target: a clash on either the email or the name index yields no row
+  private static final String INSERT_USER = """
+      WITH written AS (
+        INSERT INTO users (name, email, roles)
+        VALUES (:name, :email, :roles)
+        ON CONFLICT DO NOTHING
+        RETURNING\s""" + COLUMNS + "),\n" + RECORD_CHANGE;
+
+  private static final String UPDATE_USER = """
+      WITH written AS (
+        UPDATE users SET name = :name, roles = :roles, version = version + 1
+        WHERE email = :email
+        RETURNING\s""" + COLUMNS + "),\n" + RECORD_CHANGE;
+
+  private static final String UPDATE_USER_IF_VERSION = """
+      WITH written AS (
+        UPDATE users SET name = :name, roles = :roles, version = version + 1
+        WHERE email = :email AND version = :version
+        RETURNING\s""" + COLUMNS + "),\n" + RECORD_CHANGE;
+
+  private static final String DELETE_USER = """
+      WITH deleted AS (
+        DELETE FROM users
+        WHERE email = :email
+        RETURNING email)
+      INSERT INTO user_changes (type, email)
+      SELECT :type, email FROM deleted""";
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<User> insert(User user) {
+    return databaseClient.sql(INSERT_USER)
+        .bind("name", user.getName())
+        .bind("email", user.getEmail())
+        .bind("roles", roles(user))
+        .bind("type", UserChangeEvent.Type.CREATED.name())
+        .map(R2dbcUserRepository::toUser)
+        .one()
+        .flatMap(inserted -> publish().thenReturn(inserted));
+  }
+
+  @Override
+  public Mono<User> update(User user, Long expectedVersion) {
+    DatabaseClient.GenericExecuteSpec statement = databaseClient
+        .sql(expectedVersion == null ? UPDATE_USER : UPDATE_USER_IF_VERSION)
+        .bind("name", user.getName())
+        .bind("email", user.getEmail())
+        .bind("roles", roles(user))
+        .bind("type", UserChangeEvent.Type.UPDATED.name());
+    if (expectedVersion != null) {
+      statement = statement.bind("version", expectedVersion);
+    }
+    return statement.map(R2dbcUserRepository::toUser).one()
+        .flatMap(updated -> publish().thenReturn(updated));
+  }
+
+  @Override
+  public Mono<User> findByEmail(String email) {
+    return databaseClient.sql("SELECT " + COLUMNS + " FROM users WHERE email = :email")
+        .bind("email", email)
+        .map(R2dbcUserRepository::toUser)
+        .one();
+  }
+
+  @Override
+  public Mono<Boolean> existsByEmail(String email) {
+    return databaseClient.sql("SELECT EXISTS (SELECT 1 FROM users WHERE email = :email)")
+        .bind("email", email)
+        .map(row -> row.get(0, Boolean.class))
+        .one();
+  }
+
+  @Override
+  public Flux<User> findAllAfter(KeysetCursor cursor, Sort.Order order, int limit) {
+    String direction = order.isDescending() ? "DESC" : "ASC";
+    String after = order.isDescending() ? "<" : ">";
+    String column = switch (order.getProperty()) {
+      case "name" -> "name";
+      case "email" -> "email";
+      default -> "id";
+    };
+    // same predicates as the JPA keyset queries, so the leading column index stays usable
+    String predicate = cursor == null ? "" : switch (column) {
+      case "name" -> "WHERE name " + after + "= :value AND (name " + after + " :value OR id "
+          + after + " :id) ";
+      case "email" -> "WHERE email " + after + " :value ";
+      default -> "WHERE id " + after + " :id ";
+    };
+    String orderBy = column.equals("id")
+        ? "ORDER BY id " + direction
+        : "ORDER BY " + column + " " + direction + ", id " + direction;
+
+    DatabaseClient.GenericExecuteSpec statement = databaseClient
+        .sql("SELECT " + COLUMNS + " FROM users " + predicate + orderBy + " LIMIT :limit")
+        .bind("limit", limit);
+    if (cursor != null) {
+      statement = statement.bind("id", cursor.id());
+      if (!column.equals("id")) {
+        statement = statement.bind("value", cursor.value());
+      }
+    }
+    return statement.map(R2dbcUserRepository::toUser).all();
+  }
+
+  @Override
+  public Flux<User> streamAll() {
+    return databaseClient.sql("SELECT " + COLUMNS + " FROM users")
+        .filter(statement -> statement.fetchSize(Constants.EXPORT_FETCH_SIZE))
+        .map(R2dbcUserRepository::toUser)
+        .all();
+  }
+
+  @Override
+  public Mono<Boolean> deleteByEmail(String email) {
+    return databaseClient.sql(DELETE_USER)
+        .bind("email", email)
+        .bind("type", UserChangeEvent.Type.DELETED.name())
+        .fetch()
+        .rowsUpdated()
+        .flatMap(deleted -> deleted > 0 ? publish().thenReturn(true) : Mono.just(false));
+  }
+
+  /**
+   * Numbers the committed changes. The write has already committed, so a failed pass is logged
+   * and left to the next write or to a servlet instance's background pass.
+   */
+  private Mono<Void> publish() {
+    return publishPass()
+        .expand(published -> published >= Constants.USER_CHANGES_PUBLISH_BATCH
+            ? publishPass() : Mono.empty())
+        .then()
+        .onErrorResume(ex -> {
+          log.warn("Could not publish user changes, leaving them to the next pass", ex);
+          return Mono.empty();
+        });
+  }
+
+  private Mono<Long> publishPass() {
+    return databaseClient.sql(PUBLISH)
+        .bind("batch", Constants.USER_CHANGES_PUBLISH_BATCH)
+        .map(row -> row.get(0, Long.class))
+        .one();
+  }
+
+  private static String[] roles(User user) {
+    return user.getRoles().toArray(String[]::new);
+  }
+
+  private static User toUser(Readable row) {
+    return User.builder()
+        .id(row.get("id", UUID.class))
+        .name(row.get("name", String.class))
+        .email(row.get("email", String.class))
+        .roles(new ArrayList<>(Arrays.asList(row.get("roles", String[].class))))
+        .version(row.get("version", Long.class))
+        .build();
+  }
+}
@@ -0,0 +1,301 @@
+package com.sap.refactoring.repository.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted secondary index backed by a size-augmented treap. Besides O(log n) inserts and removals
+ * it answers positional queries, so a page at any offset is served in O(log n + page size)
+ * without copying or sorting the whole data set.
+ */
+final class RankedIndex<T> {
+
+  private final Comparator<? super T> comparator;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private Node<T> root;
+
+  RankedIndex(Comparator<? super T> comparator) {
+    this.comparator = comparator;
+  }
+
+  void add(T value) {
+    lock.writeLock().lock();
+    try {
+      root = insert(root, value);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void remove(T value) {
+    lock.writeLock().lock();
+    try {
+      root = delete(root, value);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void replace(T previous, T current) {
+    lock.writeLock().lock();
+    try {
+      if (previous != null) {
+        root = delete(root, previous);
+      }
+      root = insert(root, current);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Fills an empty index with {@code values} in O(n log n): the values are sorted in parallel and
+   * linked into a balanced tree whose priorities still satisfy the heap order, instead of being
+   * inserted one by one.
+   */
+  void load(T[] values) {
+    T[] sorted = values.clone();
+    Arrays.parallelSort(sorted, comparator);
+    lock.writeLock().lock();
+    try {
+      if (root != null) {
+        throw new IllegalStateException("Only an empty index can be loaded");
+      }
+      root = build(sorted, 0, sorted.length);
+      int[] priorities = ThreadLocalRandom.current().ints(sorted.length).toArray();
+      Arrays.sort(priorities);
+      Deque<Node<T>> level = new ArrayDeque<>();
+      if (root != null) {
+        level.add(root);
+      }
+      int next = priorities.length;
+      while (!level.isEmpty()) {
+        Node<T> node = level.poll();
+        node.priority = priorities[--next];
+        if (node.left != null) {
+          level.add(node.left);
+        }
+        if (node.right != null) {
+          level.add(node.right);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  int size() {
+    lock.readLock().lock();
+    try {
+      return size(root);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the positions {@code [from, from + count)} of the index order, or of its reverse when
+   * {@code descending} is set. Elements equal under {@code peers} (the leading sort key) form a
+   * group; every group touching the window is fetched whole and the result is ordered by
+   * {@code order}, so secondary sort keys are honoured without sorting the rest of the index.
+   */
+  Range<T> range(int from, int count, boolean descending, Comparator<? super T> peers,
+      Comparator<? super T> order) {
+    lock.readLock().lock();
+    try {
+      int total = size(root);
+      int start = Math.max(descending ? total - from - count : from, 0);
+      int end = Math.min(descending ? total - from : from + count, total);
+      if (start >= end) {
+        return new Range<>(List.of(), total);
+      }
+      while (start > 0 && peers.compare(get(start - 1), get(start)) == 0) {
+        start--;
+      }
+      while (end < total && peers.compare(get(end - 1), get(end)) == 0) {
+        end++;
+      }
+
+      List<T> window = new ArrayList<>(end - start);
+      collect(root, start, end, window);
+      window.sort(order);
+
+      int skip = descending ? from - (total - end) : from - start;
+      int limit = Math.min(skip + count, window.size());
+      return new Range<>(List.copyOf(window.subList(skip, limit)), total);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns up to {@code count} elements that follow {@code probe} in index order, or precede it
+   * when {@code descending} is set. A {@code null} probe starts from the first (or last) element.
+   */
+  List<T> seek(T probe, int count, boolean descending) {
+    lock.readLock().lock();
+    try {
+      List<T> window = new ArrayList<>(Math.min(count, size(root)));
+      if (descending) {
+        int end = probe == null ? size(root) : rank(probe, false);
+        collect(root, Math.max(end - count, 0), end, window);
+        Collections.reverse(window);
+      } else {
+        int start = probe == null ? 0 : rank(probe, true);
+        collect(root, start, Math.min(start + count, size(root)), window);
+      }
+      return window;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private int rank(T probe, boolean inclusive) {
+    Node<T> node = root;
+    int rank = 0;
+    while (node != null) {
+      int cmp = comparator.compare(probe, node.value);
+      if (cmp > 0 || (inclusive && cmp == 0)) {
+        rank += size(node.left) + 1;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return rank;
+  }
+
+  private T get(int rank) {
+    Node<T> node = root;
+    int index = rank;
+    while (node != null) {
+      int leftSize = size(node.left);
+      if (index < leftSize) {
+        node = node.left;
+      } else if (index == leftSize) {
+        return node.value;
+      } else {
+        index -= leftSize + 1;
+        node = node.right;
+      }
+    }
+    throw new IndexOutOfBoundsException(rank);
+  }
+
+  private void collect(Node<T> node, int from, int to, List<T> out) {
+    if (node == null || from >= to) {
+      return;
+    }
+    int leftSize = size(node.left);
+    if (from < leftSize) {
+      collect(node.left, from, Math.min(to, leftSize), out);
+    }
+    if (from <= leftSize && leftSize < to) {
+      out.add(node.value);
+    }
+    if (to > leftSize + 1) {
+      collect(node.right, Math.max(from - leftSize - 1, 0), to - leftSize - 1, out);
+    }
+  }
+
+  private Node<T> build(T[] sorted, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int middle = (from + to) >>> 1;
+    Node<T> node = new Node<>(sorted[middle]);
+    node.left = build(sorted, from, middle);
+    node.right = build(sorted, middle + 1, to);
+    return node.update();
+  }
+
+  private Node<T> insert(Node<T> node, T value) {
+    Node<T>[] parts = split(node, value);
+    return merge(merge(parts[0], new Node<>(value)), parts[1]);
+  }
+
+  private Node<T> delete(Node<T> node, T value) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = comparator.compare(value, node.value);
+    if (cmp == 0) {
+      return merge(node.left, node.right);
+    }
+    if (cmp < 0) {
+      node.left = delete(node.left, value);
+    } else {
+      node.right = delete(node.right, value);
+    }
+    return node.update();
+  }
+
+  /**
+   * Splits the subtree into elements strictly less than {@code value} and the rest.
+   */
+  @SuppressWarnings("unchecked")
+  private Node<T>[] split(Node<T> node, T value) {
+    if (node == null) {
+      return new Node[]{null, null};
+    }
+    if (comparator.compare(node.value, value) < 0) {
+      Node<T>[] parts = split(node.right, value);
+      node.right = parts[0];
+      parts[0] = node.update();
+      return parts;
+    }
+    Node<T>[] parts = split(node.left, value);
+    node.left = parts[1];
+    parts[1] = node.update();
+    return parts;
+  }
+
+  private Node<T> merge(Node<T> left, Node<T> right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      return left.update();
+    }
+    right.left = merge(left, right.left);
+    return right.update();
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  record Range<T>(List<T> content, int total) {
+
+  }
+
+  private static final class Node<T> {
+
+    private final T value;
+    private int priority = ThreadLocalRandom.current().nextInt();
+    private int size = 1;
+    private Node<T> left;
+    private Node<T> right;
+
+    private Node(T value) {
+      this.value = value;
+    }
+
+    private Node<T> update() {
+      size = 1 + size(left) + size(right);
+      return this;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.sap.refactoring.repository.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonical, immutable role lists shared by all records of the in-memory engine. Users hold the
+ * same few role combinations, so every record with an equal list points at one instance, and the
+ * role strings inside it are shared as well. Order and duplicates are kept, so a record hands back
+ * exactly the list it was given. The dictionary stops growing at {@value #MAX_ENTRIES} distinct
+ * lists; beyond that lists are copied per record as before.
+ */
+final class RoleDictionary {
+
+  private static final int MAX_ENTRIES = 4096;
+
+  private static final ConcurrentMap<List<String>, List<String>> LISTS =
+      new ConcurrentHashMap<>();
+
+  private RoleDictionary() {
+  }
+
+  static List<String> canonical(List<String> roles) {
+    if (roles == null || roles.isEmpty()) {
+      return List.of();
+    }
+    // lists compare by content, so the caller's list can be looked up without copying it first
+    List<String> canonical = LISTS.get(roles);
+    if (canonical != null) {
+      return canonical;
+    }
+    List<String> copy = Collections.unmodifiableList(new ArrayList<>(roles));
+    if (LISTS.size() >= MAX_ENTRIES) {
+      return copy;
+    }
+    List<String> existing = LISTS.putIfAbsent(copy, copy);
+    return existing == null ? copy : existing;
+  }
+
+  static int size() {
+    return LISTS.size();
+  }
+}
@@ -0,0 +1,120 @@
+package com.sap.refactoring.repository.impl;
+
+import com.sap.refactoring.util.Constants;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes committed changes on Postgres. Writes commit their outbox rows, users and tombstones
+ * without a sequence and take no shared lock; {@code publish_user_changes} then numbers the
+ * committed rows, one pass at a time, so sequences grow in the order the rows became visible. A
+ * writer waits for one pass after its commit, so the feeds show its own writes once it returns,
+ * and a background pass publishes rows whose writer stopped between its commit and its pass.
+ *
+ * <p>Every {@link #PRUNE_INTERVAL} the relay also drops all but the latest {@code keepChanges}
+ * outbox rows and {@value #MAX_TOMBSTONES} tombstones. Positions from before the dropped rows
+ * expire and their readers resynchronize.
+ */
+@Slf4j
+public class UserChangeRelay implements AutoCloseable {
+
+  static final int MAX_TOMBSTONES = 100_000;
+  static final Duration PRUNE_INTERVAL = Duration.ofMinutes(1);
+
+  private static final String PUBLISH = "SELECT publish_user_changes(?)";
+  private static final String PRUNE = "SELECT prune_user_changes(?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ScheduledExecutorService relay;
+
+  public UserChangeRelay(JdbcTemplate jdbcTemplate, Duration interval, int keepChanges) {
+    this.jdbcTemplate = jdbcTemplate;
+    // passes run on this thread, outside the writer's transaction and its bound connection
+    this.relay = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("user-change-relay").daemon().factory());
+    relay.scheduleWithFixedDelay(this::scheduledPublish, interval.toMillis(),
+        interval.toMillis(), TimeUnit.MILLISECONDS);
+    relay.scheduleWithFixedDelay(() -> scheduledPrune(keepChanges), PRUNE_INTERVAL.toMillis(),
+        PRUNE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Publishes the changes of the current transaction once it commits, or right away outside a
+   * transaction. A failed pass is logged and left to the background pass; the write itself has
+   * already committed.
+   */
+  public void publishAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      awaitPublish();
+      return;
+    }
+    if (TransactionSynchronizationManager.hasResource(this)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResource(UserChangeRelay.this);
+        if (status == STATUS_COMMITTED) {
+          awaitPublish();
+        }
+      }
+    });
+  }
+
+  @Override
+  public void close() {
+    relay.shutdownNow();
+  }
+
+  private void awaitPublish() {
+    try {
+      relay.submit(this::publish).get();
+    } catch (ExecutionException ex) {
+      log.warn("Could not publish user changes, leaving them to the next pass", ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Periodic pass. A task that throws is never run again by its executor, so the failure is
+   * logged rather than propagated.
+   */
+  private void scheduledPublish() {
+    try {
+      publish();
+    } catch (RuntimeException ex) {
+      log.warn("Could not publish user changes", ex);
+    }
+  }
+
+  private void scheduledPrune(int keepChanges) {
+    try {
+      Long dropped = jdbcTemplate.queryForObject(PRUNE, Long.class, keepChanges, MAX_TOMBSTONES);
+      log.debug("Pruned {} user changes and tombstones", dropped);
+    } catch (RuntimeException ex) {
+      log.warn("Could not prune user changes", ex);
+    }
+  }
+
+  /**
+   * Runs passes until one numbers less than a full batch, so every row committed before the
+   * first pass started is published.
+   */
+  private void publish() {
+    Long published;
+    do {
+      published = jdbcTemplate.queryForObject(PUBLISH, Long.class,
+          Constants.USER_CHANGES_PUBLISH_BATCH);
+    } while (published != null && published >= Constants.USER_CHANGES_PUBLISH_BATCH);
+  }
+}
@@ -0,0 +1,575 @@
+package com.sap.refactoring.repository.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-ahead log and snapshots that make the in-memory store survive restarts.
+ *
+ * <p>Every write reserves the next log position, is applied to the store under the store's own
+ * locks, and then hands its encoded entry over. The journal lock is only held to reserve a
+ * position and to hand the entry over, never while the store applies a write. Entries join the
+ * in-memory batch in position order, and a write reserves its position before it becomes
+ * visible. The log order therefore follows the order in which writes became visible, and any
+ * prefix of the log is a state the store really had. A flusher thread writes each batch to the
+ * current segment file (group commit) and, depending on the {@link FsyncPolicy}, forces it to
+ * disk before the waiting writers return.
+ *
+ * <p>A snapshot rotates the log to a new segment and writes every record in the
+ * {@link UserSnapshotFormat} to a file that covers all older segments, which are then deleted.
+ * Recovery deletes snapshot files left half-written by a crash, loads the latest snapshot,
+ * decoding its blocks in parallel, replays the newer segments in order and cuts off a torn entry
+ * at the tail of the last one.
+ *
+ * <p>A failed write or scheduled snapshot marks the journal as failed: later writes are refused
+ * instead of being acknowledged without a durable log behind them.
+ */
+@Slf4j
+public class UserJournal implements AutoCloseable {
+
+  private static final String SEGMENT = "wal-";
+  private static final String SNAPSHOT = "snapshot-";
+  private static final int ENTRY_HEADER = 2 * Integer.BYTES;
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  private static final byte[] NO_ENTRY = new byte[0];
+
+  /**
+   * When writers are acknowledged: after the batch holding their write was forced to disk
+   * ({@code ALWAYS}), or once it was handed to the operating system, with the log forced every
+   * fsync interval ({@code INTERVAL}) or never explicitly ({@code NEVER}).
+   */
+  public enum FsyncPolicy {
+    ALWAYS, INTERVAL, NEVER
+  }
+
+  private final Path directory;
+  private final FsyncPolicy fsyncPolicy;
+  private final long fsyncIntervalNanos;
+  private final Duration snapshotInterval;
+
+  private final Lock lock = new ReentrantLock();
+  private final Condition hasWork = lock.newCondition();
+  private final Condition progress = lock.newCondition();
+  private final Lock snapshotLock = new ReentrantLock();
+  private ByteArrayOutputStream batch = new ByteArrayOutputStream();
+  // entries handed over ahead of a lower position that is still being applied
+  private final Map<Long, byte[]> handedOver = new HashMap<>();
+  private long reserved;
+  private long appended;
+  private long written;
+  private long durable;
+  private long appendedAtSnapshot;
+  private CompletableFuture<Long> rotation;
+  private volatile boolean running;
+  private volatile IOException failure;
+
+  private Supplier<Collection<UserRecord>> records;
+  private long segment;
+  private FileChannel channel;
+  private Thread flusher;
+  private ScheduledExecutorService snapshots;
+
+  public UserJournal(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+      Duration snapshotInterval) {
+    this.directory = directory;
+    this.fsyncPolicy = fsyncPolicy;
+    this.fsyncIntervalNanos = fsyncInterval.toNanos();
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  /**
+   * Recovers the persisted state into the store through {@code restore}, then starts logging.
+   * {@code records} gives the live records whenever a snapshot is taken.
+   */
+  void open(Consumer<Collection<UserRecord>> restore, Supplier<Collection<UserRecord>> records) {
+    try {
+      Files.createDirectories(directory);
+      for (long number : numbers(SNAPSHOT, ".tmp")) {
+        Files.deleteIfExists(file(SNAPSHOT, number, ".tmp"));
+      }
+      List<Long> snapshotNumbers = numbers(SNAPSHOT, ".bin");
+      long snapshotNumber = snapshotNumbers.isEmpty() ? 0 : snapshotNumbers.getLast();
+      Map<UUID, UserRecord> state = new ConcurrentHashMap<>();
+      if (snapshotNumber > 0) {
+        UserSnapshotFormat.read(file(SNAPSHOT, snapshotNumber, ".bin")).parallelStream()
+            .forEach(user -> state.put(user.id(), user));
+      }
+      List<Long> segments = numbers(SEGMENT, ".log").stream()
+          .filter(number -> number >= snapshotNumber)
+          .toList();
+      for (int i = 0; i < segments.size(); i++) {
+        replay(file(SEGMENT, segments.get(i), ".log"), state, i == segments.size() - 1);
+      }
+      restore.accept(state.values());
+
+      this.records = records;
+      segment = Math.max(snapshotNumber, segments.isEmpty() ? 0 : segments.getLast()) + 1;
+      channel = openSegment(segment);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Could not recover the user store from " + directory, ex);
+    }
+    running = true;
+    flusher = Thread.ofPlatform().name("user-journal-flusher").daemon().start(this::flush);
+    snapshots = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("user-journal-snapshot").daemon().factory());
+    snapshots.scheduleWithFixedDelay(this::scheduledSnapshot, snapshotInterval.toMillis(),
+        snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Applies a write of {@code user} and logs it at the position it reserved just before. The
+   * caller holds the store lock that orders writes to the same user. Returns the log position to
+   * pass to {@link #awaitDurable}; nothing is logged when {@code apply} throws.
+   */
+  long put(UserRecord user, Runnable apply) {
+    return append(entry(PUT, out -> writeRecord(out, user)), apply);
+  }
+
+  long delete(UUID id, Runnable apply) {
+    return append(entry(DELETE, out -> writeId(out, id)), apply);
+  }
+
+  /**
+   * Blocks until the write at {@code position} is as durable as the fsync policy promises.
+   */
+  void awaitDurable(long position) {
+    lock.lock();
+    try {
+      while ((fsyncPolicy == FsyncPolicy.ALWAYS ? durable : written) < position) {
+        if (failure != null) {
+          throw new UncheckedIOException("Write-ahead log is unavailable", failure);
+        }
+        progress.awaitUninterruptibly();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Compacts the log into a snapshot, unless nothing was written since the last one.
+   */
+  public void snapshot() {
+    snapshot(false);
+  }
+
+  /**
+   * Snapshots the store even without logged writes, for state that was loaded around the log.
+   */
+  void checkpoint() {
+    snapshot(true);
+  }
+
+  /**
+   * Whether a write or a snapshot failed, after which no further writes are accepted.
+   */
+  public boolean isFailed() {
+    return failure != null;
+  }
+
+  /**
+   * Periodic snapshot. A task that throws is never run again by its executor, so the failure is
+   * logged and recorded here rather than propagated.
+   */
+  private void scheduledSnapshot() {
+    try {
+      snapshot(false);
+    } catch (RuntimeException ex) {
+      log.error("Could not snapshot the user store in {}", directory, ex);
+      fail(ex.getCause() instanceof IOException cause ? cause : new IOException(ex));
+    }
+  }
+
+  private void fail(IOException ex) {
+    lock.lock();
+    try {
+      if (failure == null) {
+        failure = ex;
+      }
+      progress.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void snapshot(boolean force) {
+    snapshotLock.lock();
+    try {
+      CompletableFuture<Long> rotated = new CompletableFuture<>();
+      long covered;
+      lock.lock();
+      try {
+        if (!running || failure != null || (!force && appended == appendedAtSnapshot)) {
+          return;
+        }
+        covered = appended;
+        rotation = rotated;
+        hasWork.signal();
+      } finally {
+        lock.unlock();
+      }
+      long next = rotated.join();
+      writeSnapshot(next);
+      lock.lock();
+      try {
+        appendedAtSnapshot = covered;
+      } finally {
+        lock.unlock();
+      }
+      for (long number : numbers(SEGMENT, ".log")) {
+        if (number < next) {
+          Files.deleteIfExists(file(SEGMENT, number, ".log"));
+        }
+      }
+      for (long number : numbers(SNAPSHOT, ".bin")) {
+        if (number < next) {
+          Files.deleteIfExists(file(SNAPSHOT, number, ".bin"));
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Could not snapshot the user store", ex);
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  /**
+   * Flushes and forces the pending batch, then stops logging.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!running) {
+      return;
+    }
+    snapshots.shutdownNow();
+    lock.lock();
+    try {
+      running = false;
+      hasWork.signal();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      flusher.join(Duration.ofSeconds(30));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    channel.close();
+  }
+
+  private long append(byte[] entry, Runnable apply) {
+    long position = reserve();
+    try {
+      apply.run();
+    } catch (RuntimeException | Error ex) {
+      handOver(position, NO_ENTRY);
+      throw ex;
+    }
+    handOver(position, entry);
+    return position;
+  }
+
+  /**
+   * Takes the next log position. A write reserves it before it becomes visible, so a write that
+   * sees the effect of another one always gets a later position.
+   */
+  private long reserve() {
+    lock.lock();
+    try {
+      if (failure != null) {
+        throw new UncheckedIOException("Write-ahead log is unavailable", failure);
+      }
+      if (!running) {
+        throw new IllegalStateException("Write-ahead log is closed");
+      }
+      return ++reserved;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds the entry at {@code position} to the batch, with every entry after it that is already
+   * waiting, once all lower positions are in. A write that threw hands over an empty entry.
+   */
+  private void handOver(long position, byte[] entry) {
+    lock.lock();
+    try {
+      handedOver.put(position, entry);
+      byte[] next;
+      while ((next = handedOver.remove(appended + 1)) != null) {
+        batch.write(next, 0, next.length);
+        appended++;
+      }
+      hasWork.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Group commit loop: takes whatever was appended since the last round, writes it in one go and
+   * forces it when the policy asks for it, then wakes the writers it covered.
+   */
+  private void flush() {
+    ByteArrayOutputStream spare = new ByteArrayOutputStream();
+    long lastForce = System.nanoTime();
+    while (true) {
+      ByteArrayOutputStream pending;
+      long upTo;
+      CompletableFuture<Long> rotate;
+      lock.lock();
+      try {
+        // on close, writes that reserved a position are still handed over and flushed
+        while (batch.size() == 0 && rotation == null && (running || appended < reserved)) {
+          if (fsyncPolicy != FsyncPolicy.INTERVAL || durable == written) {
+            hasWork.awaitUninterruptibly();
+          } else if (hasWork.awaitNanos(fsyncIntervalNanos) <= 0) {
+            break;
+          }
+        }
+        if (!running && batch.size() == 0 && rotation == null && appended == reserved) {
+          return;
+        }
+        pending = batch;
+        batch = spare;
+        upTo = appended;
+        rotate = rotation;
+        rotation = null;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        lock.unlock();
+      }
+
+      boolean forced = false;
+      try {
+        ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS || rotate != null || !running
+            || (fsyncPolicy == FsyncPolicy.INTERVAL
+            && System.nanoTime() - lastForce >= fsyncIntervalNanos)) {
+          channel.force(false);
+          lastForce = System.nanoTime();
+          forced = true;
+        }
+        if (rotate != null) {
+          channel.close();
+          segment++;
+          channel = openSegment(segment);
+          rotate.complete(segment);
+        }
+      } catch (IOException ex) {
+        failure = ex;
+        if (rotate != null) {
+          rotate.completeExceptionally(ex);
+        }
+      }
+      pending.reset();
+      spare = pending;
+
+      lock.lock();
+      try {
+        if (failure == null) {
+          written = upTo;
+          if (forced) {
+            durable = upTo;
+          }
+        }
+        progress.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      if (failure != null) {
+        return;
+      }
+    }
+  }
+
+  private void writeSnapshot(long number) throws IOException {
+    Path temporary = file(SNAPSHOT, number, ".tmp");
+    try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      UserSnapshotFormat.write(records.get(), Channels.newOutputStream(file));
+      file.force(true);
+    }
+    Files.move(temporary, file(SNAPSHOT, number, ".bin"), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Applies the entries of a segment to {@code state}. A short or corrupt entry ends the replay:
+   * at the tail of the last segment it is a write that never completed and is cut off, anywhere
+   * else the log is damaged and recovery fails.
+   */
+  private static void replay(Path path, Map<UUID, UserRecord> state, boolean last)
+      throws IOException {
+    try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Channels.newInputStream(file), 1 << 16));
+      long size = file.size();
+      long position = 0;
+      CRC32C crc = new CRC32C();
+      while (position < size) {
+        byte[] payload = null;
+        if (size - position >= ENTRY_HEADER) {
+          int length = in.readInt();
+          int checksum = in.readInt();
+          if (length > 0 && length <= size - position - ENTRY_HEADER) {
+            payload = in.readNBytes(length);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+              payload = null;
+            }
+          }
+        }
+        if (payload == null) {
+          if (!last) {
+            throw new IOException("Write-ahead log " + path + " is corrupt at byte " + position);
+          }
+          file.truncate(position);
+          file.force(true);
+          return;
+        }
+        apply(payload, state);
+        position += ENTRY_HEADER + payload.length;
+      }
+    }
+  }
+
+  private static void apply(byte[] payload, Map<UUID, UserRecord> state) throws IOException {
+    DataInput in = new DataInputStream(new ByteArrayInputStream(payload));
+    switch (in.readByte()) {
+      case PUT -> {
+        UserRecord user = readRecord(in);
+        state.put(user.id(), user);
+      }
+      case DELETE -> state.remove(new UUID(in.readLong(), in.readLong()));
+      default -> throw new IOException("Unknown write-ahead log entry");
+    }
+  }
+
+  private static byte[] entry(byte type, EntryWriter writer) {
+    try {
+      ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+      DataOutputStream out = new DataOutputStream(payload);
+      out.writeByte(type);
+      writer.write(out);
+      byte[] bytes = payload.toByteArray();
+      CRC32C crc = new CRC32C();
+      crc.update(bytes);
+      return ByteBuffer.allocate(ENTRY_HEADER + bytes.length)
+          .putInt(bytes.length)
+          .putInt((int) crc.getValue())
+          .put(bytes)
+          .array();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static void writeRecord(DataOutput out, UserRecord user) throws IOException {
+    writeId(out, user.id());
+    out.writeLong(user.version());
+    writeString(out, user.name());
+    writeString(out, user.email());
+    out.writeInt(user.roles().size());
+    for (String role : user.roles()) {
+      writeString(out, role);
+    }
+  }
+
+  private static UserRecord readRecord(DataInput in) throws IOException {
+    UUID id = new UUID(in.readLong(), in.readLong());
+    long version = in.readLong();
+    String name = readString(in);
+    String email = readString(in);
+    int count = in.readInt();
+    List<String> roles = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      roles.add(readString(in));
+    }
+    return new UserRecord(id, name, email, RoleDictionary.canonical(roles), version);
+  }
+
+  private static void writeId(DataOutput out, UUID id) throws IOException {
+    out.writeLong(id.getMostSignificantBits());
+    out.writeLong(id.getLeastSignificantBits());
+  }
+
+  private static void writeString(DataOutput out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private FileChannel openSegment(long number) throws IOException {
+    return FileChannel.open(file(SEGMENT, number, ".log"), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE);
+  }
+
+  private Path file(String prefix, long number, String suffix) {
+    return directory.resolve(String.format("%s%020d%s", prefix, number, suffix));
+  }
+
+  private List<Long> numbers(String prefix, String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> path.getFileName().toString())
+          .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+          .map(name -> Long.parseLong(
+              name.substring(prefix.length(), name.length() - suffix.length())))
+          .sorted()
+          .toList();
+    }
+  }
+
+  @FunctionalInterface
+  private interface EntryWriter {
+
+    void write(DataOutput out) throws IOException;
+  }
+}
@@ -0,0 +1,81 @@
+package com.sap.refactoring.repository.impl;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.KeysetCursor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Immutable storage row of the in-memory engine. Records are never mutated in place: a write
+ * replaces the whole record, so every index can safely hold a direct reference to it. Role lists
+ * come from the shared {@link RoleDictionary}.
+ */
+record UserRecord(UUID id, String name, String email, List<String> roles, long version) {
+
+  static UserRecord of(UUID id, long version, User user) {
+    return new UserRecord(id, user.getName(), user.getEmail(),
+        RoleDictionary.canonical(user.getRoles()), version);
+  }
+
+  User toUser() {
+    return User.builder()
+        .id(id)
+        .name(name)
+        .email(email)
+        .roles(new ArrayList<>(roles))
+        .version(version)
+        .build();
+  }
+
+  /**
+   * The roles list is canonical and unmodifiable, so the response shares it.
+   */
+  UserResponse toResponse() {
+    return new UserResponse(name, email, roles, version);
+  }
+
+  /**
+   * Order of a sorted index on {@code property}: the property itself with the id breaking ties.
+   */
+  static Comparator<UserRecord> indexOrder(String property) {
+    Comparator<UserRecord> key = sortKey(property);
+    return "id".equalsIgnoreCase(property) ? key : key.thenComparing(UserRecord::id);
+  }
+
+  static Comparator<UserRecord> sortKey(String property) {
+    return switch (property.toLowerCase()) {
+      case "name" -> Comparator.comparing(UserRecord::name,
+          Comparator.nullsLast(Comparator.naturalOrder()));
+      case "email" -> Comparator.comparing(UserRecord::email,
+          Comparator.nullsLast(Comparator.naturalOrder()));
+      default -> Comparator.comparing(UserRecord::id);
+    };
+  }
+
+  static Comparator<UserRecord> comparator(Sort sort) {
+    Comparator<UserRecord> comparator = null;
+    for (Sort.Order order : sort) {
+      Comparator<UserRecord> key = sortKey(order.getProperty());
+      if (order.getDirection() == Sort.Direction.DESC) {
+        key = key.reversed();
+      }
+      comparator = comparator == null ? key : comparator.thenComparing(key);
+    }
+    return comparator.thenComparing(UserRecord::id);
+  }
+
+  /**
+   * A record positioned at {@code cursor} in the {@link #indexOrder} of {@code property}.
+   */
+  static UserRecord probe(KeysetCursor cursor, String property) {
+    return switch (property.toLowerCase()) {
+      case "name" -> new UserRecord(cursor.id(), cursor.value(), null, List.of(), 0);
+      case "email" -> new UserRecord(cursor.id(), null, cursor.value(), List.of(), 0);
+      default -> new UserRecord(cursor.id(), null, null, List.of(), 0);
+    };
+  }
+}
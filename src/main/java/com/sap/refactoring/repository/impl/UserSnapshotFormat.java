@@ -0,0 +1,212 @@
+package com.sap.refactoring.repository.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Binary image of a user set, shared by the warm load, the snapshot export and the journal.
+ *
+ * <p>Layout: a magic number and format version, then blocks of up to {@value #BLOCK_RECORDS}
+ * records, each prefixed by its record count and byte length, a zero count ending the blocks, the
+ * role dictionary and finally the offset of that dictionary. A record is its UUID as two longs,
+ * its version, name and email as varint-length-prefixed UTF-8 and its roles as varint ids into the
+ * dictionary; zero encodes {@code null} in every varint. Blocks are independent, so a reader maps
+ * them and decodes them in parallel.
+ */
+final class UserSnapshotFormat {
+
+  private static final long MAGIC = 0x5553455253534e50L;
+  private static final int VERSION = 1;
+  private static final int BLOCK_RECORDS = 8192;
+  private static final int HEADER = Long.BYTES + Integer.BYTES;
+  private static final int BLOCK_HEADER = 2 * Integer.BYTES;
+
+  private UserSnapshotFormat() {
+  }
+
+  static void write(Collection<UserRecord> users, OutputStream output) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+    out.writeLong(MAGIC);
+    out.writeInt(VERSION);
+    long position = HEADER;
+
+    Map<String, Integer> roleIds = new HashMap<>();
+    List<String> roles = new ArrayList<>();
+    ByteArrayOutputStream block = new ByteArrayOutputStream(1 << 16);
+    int count = 0;
+    for (UserRecord user : users) {
+      writeRecord(block, user, roleIds, roles);
+      if (++count == BLOCK_RECORDS) {
+        position += writeBlock(out, block, count);
+        count = 0;
+      }
+    }
+    if (count > 0) {
+      position += writeBlock(out, block, count);
+    }
+    out.writeInt(0);
+    position += Integer.BYTES;
+
+    ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+    writeVarint(dictionary, roles.size());
+    for (String role : roles) {
+      writeString(dictionary, role);
+    }
+    dictionary.writeTo(out);
+    out.writeLong(position);
+    out.flush();
+  }
+
+  static List<UserRecord> read(Path path) throws IOException {
+    try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = file.size();
+      ByteBuffer header = file.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+      if (size < HEADER + Integer.BYTES + Long.BYTES || header.getLong() != MAGIC) {
+        throw new IOException("Not a user snapshot: " + path);
+      }
+      if (header.getInt() != VERSION) {
+        throw new IOException("Unsupported user snapshot version: " + path);
+      }
+      long dictionaryAt = file.map(FileChannel.MapMode.READ_ONLY, size - Long.BYTES, Long.BYTES)
+          .getLong();
+      ByteBuffer dictionary = file.map(FileChannel.MapMode.READ_ONLY, dictionaryAt,
+          size - Long.BYTES - dictionaryAt);
+      String[] roles = new String[readVarint(dictionary)];
+      for (int i = 0; i < roles.length; i++) {
+        roles[i] = readString(dictionary);
+      }
+
+      List<long[]> blocks = new ArrayList<>();
+      long position = HEADER;
+      while (true) {
+        ByteBuffer block = file.map(FileChannel.MapMode.READ_ONLY, position,
+            Math.min(BLOCK_HEADER, dictionaryAt - position));
+        int count = block.getInt();
+        if (count == 0) {
+          break;
+        }
+        int length = block.getInt();
+        blocks.add(new long[]{position + BLOCK_HEADER, length, count});
+        position += BLOCK_HEADER + length;
+      }
+      return blocks.parallelStream()
+          .flatMap(block -> {
+            try {
+              ByteBuffer records = file.map(FileChannel.MapMode.READ_ONLY, block[0], block[1]);
+              UserRecord[] decoded = new UserRecord[(int) block[2]];
+              for (int i = 0; i < decoded.length; i++) {
+                decoded[i] = readRecord(records, roles);
+              }
+              return Arrays.stream(decoded);
+            } catch (IOException ex) {
+              throw new UncheckedIOException(ex);
+            }
+          })
+          .toList();
+    }
+  }
+
+  private static long writeBlock(DataOutputStream out, ByteArrayOutputStream block, int count)
+      throws IOException {
+    int length = block.size();
+    out.writeInt(count);
+    out.writeInt(length);
+    block.writeTo(out);
+    block.reset();
+    return BLOCK_HEADER + length;
+  }
+
+  private static void writeRecord(ByteArrayOutputStream out, UserRecord user,
+      Map<String, Integer> roleIds, List<String> roles) {
+    out.writeBytes(ByteBuffer.allocate(3 * Long.BYTES)
+        .putLong(user.id().getMostSignificantBits())
+        .putLong(user.id().getLeastSignificantBits())
+        .putLong(user.version())
+        .array());
+    writeString(out, user.name());
+    writeString(out, user.email());
+    writeVarint(out, user.roles().size());
+    for (String role : user.roles()) {
+      if (role == null) {
+        writeVarint(out, 0);
+        continue;
+      }
+      Integer id = roleIds.get(role);
+      if (id == null) {
+        id = roles.size();
+        roleIds.put(role, id);
+        roles.add(role);
+      }
+      writeVarint(out, id + 1);
+    }
+  }
+
+  private static UserRecord readRecord(ByteBuffer in, String[] roleNames) {
+    UUID id = new UUID(in.getLong(), in.getLong());
+    long version = in.getLong();
+    String name = readString(in);
+    String email = readString(in);
+    String[] roles = new String[readVarint(in)];
+    for (int i = 0; i < roles.length; i++) {
+      int role = readVarint(in);
+      roles[i] = role == 0 ? null : roleNames[role - 1];
+    }
+    return new UserRecord(id, name, email, RoleDictionary.canonical(Arrays.asList(roles)),
+        version);
+  }
+
+  private static void writeString(ByteArrayOutputStream out, String value) {
+    if (value == null) {
+      writeVarint(out, 0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, bytes.length + 1);
+    out.writeBytes(bytes);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = readVarint(in);
+    if (length == 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length - 1];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int readVarint(ByteBuffer in) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte next = in.get();
+      value |= (next & 0x7f) << shift;
+      if (next >= 0) {
+        return value;
+      }
+    }
+  }
+}
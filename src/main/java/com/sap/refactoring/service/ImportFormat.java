@@ -0,0 +1,14 @@
+package com.sap.refactoring.service;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+  CSV,
+  NDJSON;
+
+  public static final String TEXT_CSV_VALUE = "text/csv";
+
+  public static ImportFormat of(MediaType contentType) {
+    return MediaType.valueOf(TEXT_CSV_VALUE).isCompatibleWith(contentType) ? CSV : NDJSON;
+  }
+}
@@ -0,0 +1,25 @@
+package com.sap.refactoring.service;
+
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.CursorPageResponse;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.repository.KeysetCursor;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserService {
+
+  Mono<UserResponse> createUser(UserRequest request);
+
+  Mono<UserResponse> updateUser(UserRequest request, Long expectedVersion);
+
+  Mono<Void> deleteByEmail(String email);
+
+  Mono<UserResponse> getByEmail(String email);
+
+  Mono<CursorPageResponse<UserResponse>> getAllUsers(KeysetCursor after, Sort.Order order,
+      int size);
+
+  Flux<UserResponse> exportUsers();
+}
@@ -0,0 +1,21 @@
+package com.sap.refactoring.service;
+
+import com.sap.refactoring.dto.response.UserChangesResponse;
+import com.sap.refactoring.dto.response.UserSyncResponse;
+import com.sap.refactoring.repository.SyncToken;
+import java.time.Duration;
+
+public interface UserChangeService {
+
+  /**
+   * Changes after sequence {@code after}, waiting up to {@code wait} when there are none yet.
+   * Without {@code after}, returns no changes and the current sequence to follow from.
+   */
+  UserChangesResponse getChanges(Long after, int limit, Duration wait);
+
+  /**
+   * Latest state of the users changed since {@code since} and the emails deleted since then.
+   * Without a token, every current user.
+   */
+  UserSyncResponse getChangesSince(SyncToken since, int limit);
+}
@@ -0,0 +1,9 @@
+package com.sap.refactoring.service;
+
+import com.sap.refactoring.dto.response.ImportResultResponse;
+import java.io.InputStream;
+
+public interface UserImportService {
+
+  ImportResultResponse importUsers(InputStream input, ImportFormat format);
+}
@@ -1,22 +1,56 @@
 package com.sap.refactoring.service;
 
 import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.BulkUserResponse;
+import com.sap.refactoring.dto.response.CursorPageResponse;
 import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.RoleFilter;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 public interface UserService {
 
   UserResponse createUser(UserRequest request);
 
-  UserResponse updateUser(UserRequest request);
+  /**
+   * Creates, or with {@code upsert} also updates, every request in one pass over
+   * {@code requests}, reporting the outcome of each item by its position.
+   */
+  BulkUserResponse createUsers(Iterator<UserRequest> requests, boolean upsert);
+
+  /**
+   * Replaces the user with the request's email. With an {@code expectedVersion} the update only
+   * applies while the stored version still matches, otherwise {@code VersionMismatchException} is
+   * thrown.
+   */
+  UserResponse updateUser(UserRequest request, Long expectedVersion);
 
   void deleteByEmail(String email);
 
-  List<UserResponse> getAllUsers();
+  /**
+   * Lists all users, or only those matching {@code roles} when it is given.
+   */
+  List<UserResponse> getAllUsers(RoleFilter roles);
+
+  Page<UserResponse> getAllUsers(Pageable pageable, RoleFilter roles);
 
-  Page<UserResponse> getAllUsers(Pageable pageable);
+  /**
+   * A page of users stamped with the version of the whole collection, read before the page. When
+   * {@code current} accepts that version the caller's copy is still valid, and the page is neither
+   * read nor mapped.
+   */
+  Versioned<Page<UserResponse>> getAllUsers(Pageable pageable, RoleFilter roles,
+      Predicate<String> current);
+
+  CursorPageResponse<UserResponse> getAllUsers(KeysetCursor after, Sort.Order order, int size);
 
   UserResponse getByEmail(String email);
+
+  void exportUsers(Consumer<UserResponse> consumer);
 }
@@ -0,0 +1,9 @@
+package com.sap.refactoring.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface UserSnapshotService {
+
+  void writeSnapshot(OutputStream output) throws IOException;
+}
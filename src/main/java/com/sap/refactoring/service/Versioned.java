@@ -0,0 +1,16 @@
+package com.sap.refactoring.service;
+
+/**
+ * A read together with the version it was taken at. Without a body the caller already holds that
+ * version, so nothing was read.
+ */
+public record Versioned<T>(String version, T body) {
+
+  public static <T> Versioned<T> unchanged(String version) {
+    return new Versioned<>(version, null);
+  }
+
+  public boolean isUnchanged() {
+    return body == null;
+  }
+}
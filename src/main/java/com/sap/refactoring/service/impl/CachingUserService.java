@@ -0,0 +1,139 @@
+package com.sap.refactoring.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.BulkItemResult;
+import com.sap.refactoring.dto.response.BulkUserResponse;
+import com.sap.refactoring.dto.response.CursorPageResponse;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.service.UserService;
+import com.sap.refactoring.service.Versioned;
+import com.sap.refactoring.util.Constants;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+/**
+ * Read-through cache of {@link #getByEmail} in front of {@link UserServiceImpl}. Every mutation
+ * invalidates the emails it touched once the delegate's transaction has committed.
+ */
+@Primary
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class CachingUserService implements UserService {
+
+  private final UserServiceImpl delegate;
+  private final AsyncCache<String, Optional<UserResponse>> userResponseCache;
+
+  @Override
+  public UserResponse createUser(UserRequest request) {
+    UserResponse created = delegate.createUser(request);
+    userResponseCache.synchronous().invalidate(request.email());
+    return created;
+  }
+
+  /**
+   * The requests are read only once, by the delegate, so the emails to invalidate come from the
+   * items it created or updated.
+   */
+  @Override
+  public BulkUserResponse createUsers(Iterator<UserRequest> requests, boolean upsert) {
+    BulkUserResponse response = delegate.createUsers(requests, upsert);
+    userResponseCache.synchronous().invalidateAll(response.items().stream()
+        .filter(item -> item.status() != BulkItemResult.Status.REJECTED)
+        .map(BulkItemResult::email)
+        .toList());
+    return response;
+  }
+
+  @Override
+  public UserResponse updateUser(UserRequest request, Long expectedVersion) {
+    UserResponse updated = delegate.updateUser(request, expectedVersion);
+    userResponseCache.synchronous().invalidate(request.email());
+    return updated;
+  }
+
+  @Override
+  public void deleteByEmail(String email) {
+    delegate.deleteByEmail(email);
+    userResponseCache.synchronous().invalidate(email);
+  }
+
+  @Override
+  public List<UserResponse> getAllUsers(RoleFilter roles) {
+    return delegate.getAllUsers(roles);
+  }
+
+  @Override
+  public Page<UserResponse> getAllUsers(Pageable pageable, RoleFilter roles) {
+    return delegate.getAllUsers(pageable, roles);
+  }
+
+  @Override
+  public Versioned<Page<UserResponse>> getAllUsers(Pageable pageable, RoleFilter roles,
+      Predicate<String> current) {
+    return delegate.getAllUsers(pageable, roles, current);
+  }
+
+  @Override
+  public CursorPageResponse<UserResponse> getAllUsers(KeysetCursor after, Sort.Order order,
+      int size) {
+    return delegate.getAllUsers(after, order, size);
+  }
+
+  /**
+   * The cache only installs an empty future under its map lock; the lookup runs afterwards on the
+   * calling thread, so no monitor is held across the database call and virtual threads are never
+   * pinned. Concurrent misses for the same email wait on the first caller's future.
+   */
+  @Override
+  public UserResponse getByEmail(String email) {
+    CompletableFuture<Optional<UserResponse>> loading = new CompletableFuture<>();
+    CompletableFuture<Optional<UserResponse>> cached =
+        userResponseCache.get(email, (key, executor) -> loading);
+    if (cached == loading) {
+      try {
+        loading.complete(lookup(email));
+      } catch (RuntimeException ex) {
+        loading.completeExceptionally(ex);
+        throw ex;
+      }
+    }
+    Optional<UserResponse> user;
+    try {
+      user = cached.join();
+    } catch (CompletionException ex) {
+      throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+    }
+    return user.orElseThrow(() -> new EntityNotFoundException(
+        String.format(Constants.USER_NOT_FOUND_BY_EMAIL_ERR_MSG, email)));
+  }
+
+  @Override
+  public void exportUsers(Consumer<UserResponse> consumer) {
+    delegate.exportUsers(consumer);
+  }
+
+  private Optional<UserResponse> lookup(String email) {
+    try {
+      return Optional.of(delegate.getByEmail(email));
+    } catch (EntityNotFoundException ex) {
+      return Optional.empty();
+    }
+  }
+}
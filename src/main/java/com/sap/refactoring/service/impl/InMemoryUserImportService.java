@@ -0,0 +1,68 @@
+package com.sap.refactoring.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.ImportResultResponse;
+import com.sap.refactoring.dto.response.UserChangeEvent;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.mapper.UserMapper;
+import com.sap.refactoring.repository.UserChangeLog;
+import com.sap.refactoring.repository.UserChangeLog.Change;
+import com.sap.refactoring.repository.UserRepository;
+import com.sap.refactoring.service.ImportFormat;
+import com.sap.refactoring.service.UserImportService;
+import jakarta.validation.Validator;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+@Service
+@Profile({"in_memory", "off_heap"})
+@RequiredArgsConstructor
+public class InMemoryUserImportService implements UserImportService {
+
+  private final UserRequestReader userRequestReader;
+  private final UserRepository userRepository;
+  private final UserChangeLog userChangeLog;
+  private final UserMapper userMapper;
+  private final Validator validator;
+  private final AsyncCache<String, Optional<UserResponse>> userResponseCache;
+
+  @Override
+  public ImportResultResponse importUsers(InputStream input, ImportFormat format) {
+    long read = 0;
+    long rejected = 0;
+    try (Stream<UserRequest> requests = userRequestReader.read(input, format)) {
+      Iterator<UserRequest> iterator = requests.iterator();
+      while (iterator.hasNext()) {
+        UserRequest request = iterator.next();
+        read++;
+        if (!isImportable(request)) {
+          rejected++;
+          continue;
+        }
+        try {
+          userChangeLog.record(List.of(request.email()),
+              () -> userRepository.save(userMapper.toUser(request)),
+              saved -> List.of(Change.of(saved.getVersion() == 0
+                  ? UserChangeEvent.Type.CREATED : UserChangeEvent.Type.UPDATED, saved)));
+        } catch (EntityAlreadyExistsException ex) {
+          // the name belongs to another user, matching the rows the Postgres merge skips
+          rejected++;
+        }
+      }
+    }
+    userResponseCache.synchronous().invalidateAll();
+    return new ImportResultResponse(read, read - rejected, rejected);
+  }
+
+  private boolean isImportable(UserRequest request) {
+    return validator.validate(request).isEmpty() && !request.roles().contains(null);
+  }
+}
@@ -0,0 +1,22 @@
+package com.sap.refactoring.service.impl;
+
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import com.sap.refactoring.service.UserSnapshotService;
+import java.io.IOException;
+import java.io.OutputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+@Service
+@Profile("in_memory")
+@RequiredArgsConstructor
+public class InMemoryUserSnapshotService implements UserSnapshotService {
+
+  private final InMemoryUserRepository userRepository;
+
+  @Override
+  public void writeSnapshot(OutputStream output) throws IOException {
+    userRepository.writeSnapshot(output);
+  }
+}
@@ -0,0 +1,162 @@
+package com.sap.refactoring.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.ImportResultResponse;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.repository.impl.UserChangeRelay;
+import com.sap.refactoring.service.ImportFormat;
+import com.sap.refactoring.service.UserImportService;
+import jakarta.validation.Validator;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Streams the payload into a temporary staging table with {@code COPY FROM STDIN} and merges it
+ * into {@code users} with a single set-based upsert. Only one copy buffer is held in memory.
+ */
+@Service
+@Profile("postgres")
+@RequiredArgsConstructor
+public class PostgresUserImportService implements UserImportService {
+
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private static final String CREATE_STAGING_TABLE = """
+      CREATE TEMP TABLE users_import (ord BIGINT, name TEXT, email TEXT, roles TEXT[])
+      ON COMMIT DROP""";
+
+  private static final String COPY_INTO_STAGING =
+      "COPY users_import (ord, name, email, roles) FROM STDIN WITH (FORMAT csv)";
+
+  // the last row wins when the payload repeats an email or a name; rows taking the name of
+  // another stored user are skipped so the unique name index cannot abort the whole merge.
+  // Every merged row is recorded in the change outbox; version 0 means it was inserted.
+  // The query returns how many of the latest rows per email the name rules skipped
+  private static final String MERGE_STAGING = """
+      WITH latest AS (
+        SELECT DISTINCT ON (email) ord, name, email, roles
+        FROM users_import
+        ORDER BY email, ord DESC),
+      merged AS (
+        INSERT INTO users (name, email, roles)
+        SELECT DISTINCT ON (name) name, email, roles
+        FROM latest
+        WHERE NOT EXISTS (SELECT 1 FROM users u WHERE u.name = latest.name AND u.email <> latest.email)
+        ORDER BY name, ord DESC
+        ON CONFLICT (email) DO UPDATE
+        SET name = EXCLUDED.name, roles = EXCLUDED.roles, version = users.version + 1
+        RETURNING name, email, roles, version),
+      recorded AS (
+        INSERT INTO user_changes (type, email, name, roles, version)
+        SELECT CASE WHEN version = 0 THEN 'CREATED' ELSE 'UPDATED' END, email, name, roles, version
+        FROM merged
+        ORDER BY email
+        RETURNING 1)
+      SELECT (SELECT count(*) FROM latest) - (SELECT count(*) FROM recorded)""";
+
+  private final UserRequestReader userRequestReader;
+  private final JdbcTemplate jdbcTemplate;
+  private final Validator validator;
+  private final AsyncCache<String, Optional<UserResponse>> userResponseCache;
+  private final UserChangeRelay userChangeRelay;
+
+  @Override
+  @Transactional
+  public ImportResultResponse importUsers(InputStream input, ImportFormat format) {
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        userResponseCache.synchronous().invalidateAll();
+      }
+    });
+    // the merged rows are published after the commit, without holding back other writers
+    userChangeRelay.publishAfterCommit();
+    return jdbcTemplate.execute((ConnectionCallback<ImportResultResponse>) connection -> {
+      execute(connection, CREATE_STAGING_TABLE);
+      CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+          .copyIn(COPY_INTO_STAGING);
+
+      long read = 0;
+      long rejected = 0;
+      try (Stream<UserRequest> requests = userRequestReader.read(input, format)) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_SIZE);
+        Iterator<UserRequest> iterator = requests.iterator();
+        while (iterator.hasNext()) {
+          UserRequest request = iterator.next();
+          read++;
+          if (!isImportable(request)) {
+            rejected++;
+            continue;
+          }
+          buffer.writeBytes(toCsvRow(read, request));
+          if (buffer.size() >= COPY_BUFFER_SIZE) {
+            copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+            buffer.reset();
+          }
+        }
+        copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+        copyIn.endCopy();
+      } finally {
+        if (copyIn.isActive()) {
+          copyIn.cancelCopy();
+        }
+      }
+
+      try (Statement statement = connection.createStatement();
+          ResultSet skipped = statement.executeQuery(MERGE_STAGING)) {
+        skipped.next();
+        rejected += skipped.getLong(1);
+      }
+      // rows superseded by a later one for the same email count as imported, as on the
+      // in-memory store where they are written and then overwritten
+      return new ImportResultResponse(read, read - rejected, rejected);
+    });
+  }
+
+  private boolean isImportable(UserRequest request) {
+    return validator.validate(request).isEmpty() && !request.roles().contains(null);
+  }
+
+  private static void execute(Connection connection, String sql) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static byte[] toCsvRow(long ord, UserRequest request) {
+    String row = ord + "," + csvField(request.name()) + "," + csvField(request.email()) + ","
+        + csvField(arrayLiteral(request.roles())) + "\n";
+    return row.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String arrayLiteral(List<String> roles) {
+    return roles.stream()
+        .map(role -> '"' + role.replace("\\", "\\\\").replace("\"", "\\\"") + '"')
+        .collect(Collectors.joining(",", "{", "}"));
+  }
+
+  private static String csvField(String value) {
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
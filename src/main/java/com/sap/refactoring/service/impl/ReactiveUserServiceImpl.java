@@ -0,0 +1,107 @@
+package com.sap.refactoring.service.impl;
+
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.CursorPageResponse;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.exception.VersionMismatchException;
+import com.sap.refactoring.mapper.UserMapper;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.ReactiveUserRepository;
+import com.sap.refactoring.service.ReactiveUserService;
+import com.sap.refactoring.util.Constants;
+import com.sap.refactoring.validation.UserValidator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+  private final ReactiveUserRepository userRepository;
+  private final UserMapper userMapper;
+  private final UserValidator userValidator;
+
+  @Override
+  public Mono<UserResponse> createUser(UserRequest request) {
+    return validated(request)
+        .flatMap(user -> userRepository.insert(user)
+            .switchIfEmpty(Mono.defer(() -> conflict(user))))
+        .map(userMapper::toResponse);
+  }
+
+  @Override
+  public Mono<UserResponse> updateUser(UserRequest request, Long expectedVersion) {
+    return validated(request)
+        .flatMap(user -> userRepository.update(user, expectedVersion)
+            .switchIfEmpty(Mono.defer(() -> userRepository.existsByEmail(request.email())
+                .flatMap(exists -> Mono.<User>error(exists
+                    ? new VersionMismatchException(String.format(
+                        Constants.USER_VERSION_MISMATCH_ERR_MSG, request.email(), expectedVersion))
+                    : notFound(request.email()))))))
+        .map(userMapper::toResponse);
+  }
+
+  @Override
+  public Mono<Void> deleteByEmail(String email) {
+    return userRepository.deleteByEmail(email)
+        .flatMap(deleted -> deleted ? Mono.<Void>empty() : Mono.<Void>error(notFound(email)));
+  }
+
+  @Override
+  public Mono<UserResponse> getByEmail(String email) {
+    return userRepository.findByEmail(email)
+        .switchIfEmpty(Mono.error(() -> notFound(email)))
+        .map(userMapper::toResponse);
+  }
+
+  @Override
+  public Mono<CursorPageResponse<UserResponse>> getAllUsers(KeysetCursor after, Sort.Order order,
+      int size) {
+    // one extra row tells whether another page follows
+    return userRepository.findAllAfter(after, order, size + 1)
+        .collectList()
+        .map(users -> {
+          boolean hasNext = users.size() > size;
+          List<User> page = hasNext ? users.subList(0, size) : users;
+          String nextCursor = hasNext
+              ? KeysetCursor.of(page.get(page.size() - 1), order.getProperty()).encode()
+              : null;
+          return new CursorPageResponse<>(page.stream().map(userMapper::toResponse).toList(),
+              hasNext, nextCursor);
+        });
+  }
+
+  @Override
+  public Flux<UserResponse> exportUsers() {
+    return userRepository.streamAll().map(userMapper::toResponse);
+  }
+
+  private Mono<User> validated(UserRequest request) {
+    return Mono.fromSupplier(() -> {
+      User user = userMapper.toUser(request);
+      userValidator.validate(user);
+      return user;
+    });
+  }
+
+  private Mono<User> conflict(User user) {
+    return userRepository.existsByEmail(user.getEmail())
+        .flatMap(emailTaken -> Mono.<User>error(new EntityAlreadyExistsException(emailTaken
+            ? String.format(Constants.USER_ALREADY_EXISTS_BY_EMAIL_ERR_MSG, user.getEmail())
+            : String.format(Constants.USER_ALREADY_EXISTS_BY_NAME_ERR_MSG, user.getName()))));
+  }
+
+  private static EntityNotFoundException notFound(String email) {
+    return new EntityNotFoundException(
+        String.format(Constants.USER_NOT_FOUND_BY_EMAIL_ERR_MSG, email));
+  }
+}
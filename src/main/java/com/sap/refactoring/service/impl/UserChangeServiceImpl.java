@@ -0,0 +1,44 @@
+package com.sap.refactoring.service.impl;
+
+import com.sap.refactoring.dto.response.UserChangeEvent;
+import com.sap.refactoring.dto.response.UserChangesResponse;
+import com.sap.refactoring.dto.response.UserSyncResponse;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserChangeLog;
+import com.sap.refactoring.repository.UserRepository;
+import com.sap.refactoring.repository.UserSyncBatch;
+import com.sap.refactoring.service.UserChangeService;
+import java.time.Duration;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Not transactional on purpose: a long poll must not hold a connection while it waits.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class UserChangeServiceImpl implements UserChangeService {
+
+  private final UserChangeLog userChangeLog;
+  private final UserRepository userRepository;
+
+  @Override
+  public UserChangesResponse getChanges(Long after, int limit, Duration wait) {
+    if (after == null) {
+      return new UserChangesResponse(List.of(), userChangeLog.lastSequence());
+    }
+    List<UserChangeEvent> changes = userChangeLog.findAfter(after, limit, wait);
+    long next = changes.isEmpty() ? after : changes.getLast().sequence();
+    return new UserChangesResponse(changes, next);
+  }
+
+  @Override
+  public UserSyncResponse getChangesSince(SyncToken since, int limit) {
+    UserSyncBatch batch = userRepository.findChangedSince(since, limit);
+    return new UserSyncResponse(batch.users(), batch.deleted(), batch.next().encode(),
+        batch.hasMore());
+  }
+}
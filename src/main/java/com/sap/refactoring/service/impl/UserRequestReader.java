@@ -0,0 +1,105 @@
+package com.sap.refactoring.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.service.ImportFormat;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lazily turns an import payload into {@link UserRequest}s, one line at a time, so callers can
+ * feed arbitrarily large files without holding them in memory.
+ *
+ * <p>CSV rows are {@code name,email,roles} with roles separated by {@code |}; fields may be
+ * double-quoted. A leading header row is skipped. Rows with the wrong number of fields are
+ * returned with empty fields, so they fail validation like any other bad row.
+ */
+@Component
+public class UserRequestReader {
+
+  private static final String CSV_HEADER = "name,email,roles";
+  private static final String ROLE_SEPARATOR = "\\|";
+
+  private final ObjectReader ndjsonReader;
+
+  public UserRequestReader(ObjectMapper objectMapper) {
+    this.ndjsonReader = objectMapper.readerFor(UserRequest.class);
+  }
+
+  public Stream<UserRequest> read(InputStream input, ImportFormat format) {
+    BufferedReader reader = new BufferedReader(
+        new InputStreamReader(input, StandardCharsets.UTF_8));
+    Stream<String> lines = reader.lines()
+        .filter(line -> !line.isBlank())
+        .onClose(() -> close(reader));
+    return format == ImportFormat.CSV
+        ? lines.filter(line -> !CSV_HEADER.equalsIgnoreCase(line.strip())).map(this::fromCsv)
+        : lines.map(this::fromJson);
+  }
+
+  private UserRequest fromCsv(String line) {
+    List<String> fields = splitCsv(line);
+    if (fields.size() != 3) {
+      return new UserRequest(null, null, List.of());
+    }
+    List<String> roles = fields.get(2).isBlank()
+        ? List.of()
+        : Arrays.stream(fields.get(2).split(ROLE_SEPARATOR)).map(String::strip).toList();
+    return new UserRequest(fields.get(0).strip(), fields.get(1).strip(), roles);
+  }
+
+  private UserRequest fromJson(String line) {
+    try {
+      return ndjsonReader.readValue(line);
+    } catch (JsonProcessingException ex) {
+      return new UserRequest(null, null, List.of());
+    }
+  }
+
+  private static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  private static void close(BufferedReader reader) {
+    try {
+      reader.close();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
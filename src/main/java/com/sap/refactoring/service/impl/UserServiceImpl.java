@@ -1,86 +1,270 @@
 package com.sap.refactoring.service.impl;
 
 import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.BulkItemResult;
+import com.sap.refactoring.dto.response.BulkUserResponse;
+import com.sap.refactoring.dto.response.CursorPageResponse;
+import com.sap.refactoring.dto.response.UserChangeEvent;
 import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
-import com.sap.refactoring.exception.EntityAlreadyExistsException;
 import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.exception.InvalidUserRolesException;
+import com.sap.refactoring.exception.VersionMismatchException;
 import com.sap.refactoring.mapper.UserMapper;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.repository.UserChangeLog;
+import com.sap.refactoring.repository.UserChangeLog.Change;
 import com.sap.refactoring.repository.UserRepository;
 import com.sap.refactoring.service.UserService;
+import com.sap.refactoring.service.Versioned;
 import com.sap.refactoring.util.Constants;
 import com.sap.refactoring.validation.UserValidator;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
   private final UserRepository userRepository;
   private final UserMapper userMapper;
   private final UserValidator userValidator;
+  private final Validator validator;
+  private final UserChangeLog userChangeLog;
 
   @Transactional
   public UserResponse createUser(UserRequest request) {
     User user = userMapper.toUser(request);
     userValidator.validate(user);
-    if (userRepository.existsByName(user.getName())) {
-      throw new EntityAlreadyExistsException(
-          String.format(Constants.USER_ALREADY_EXISTS_BY_NAME_ERR_MSG, user.getName()));
-    }
-    if (userRepository.existsByEmail(user.getEmail())) {
-      throw new EntityAlreadyExistsException(
-          String.format(Constants.USER_ALREADY_EXISTS_BY_EMAIL_ERR_MSG, user.getEmail()));
-    }
-    User created = userRepository.save(user);
+    User created = userChangeLog.record(List.of(user.getEmail()),
+        () -> userRepository.insert(user),
+        saved -> List.of(Change.of(UserChangeEvent.Type.CREATED, saved)));
     return userMapper.toResponse(created);
   }
 
+  /**
+   * Requests are read and written {@link Constants#BULK_CHUNK_SIZE} at a time, and the
+   * persistence context is cleared after every chunk, so memory does not grow with the batch.
+   * Emails and names already used by earlier chunks are remembered to report repeats.
+   */
   @Transactional
-  public UserResponse updateUser(UserRequest request) {
-    User user = userRepository.findByEmail(request.email())
-            .orElseThrow(() -> new EntityNotFoundException(
-            String.format(Constants.USER_NOT_FOUND_BY_EMAIL_ERR_MSG, request.email())));
+  public BulkUserResponse createUsers(Iterator<UserRequest> requests, boolean upsert) {
+    List<BulkItemResult> results = new ArrayList<>();
+    Set<String> batchEmails = new HashSet<>();
+    Set<String> batchNames = new HashSet<>();
+    List<UserRequest> chunk = new ArrayList<>(Constants.BULK_CHUNK_SIZE);
+    while (requests.hasNext()) {
+      chunk.add(requests.next());
+      if (chunk.size() == Constants.BULK_CHUNK_SIZE || !requests.hasNext()) {
+        results.addAll(writeChunk(chunk, results.size(), upsert, batchEmails, batchNames));
+        chunk.clear();
+      }
+    }
+    return BulkUserResponse.of(results);
+  }
 
-    userMapper.updateUser(request, user);
+  @Transactional
+  public UserResponse updateUser(UserRequest request, Long expectedVersion) {
+    User user = userMapper.toUser(request);
     userValidator.validate(user);
 
-    User updated = userRepository.save(user);
+    User updated = userChangeLog.record(List.of(user.getEmail()),
+            () -> userRepository.update(user, expectedVersion),
+            result -> result.map(saved -> List.of(Change.of(UserChangeEvent.Type.UPDATED, saved)))
+                .orElse(List.of()))
+        .orElseThrow(() -> userRepository.existsByEmail(request.email())
+            ? new VersionMismatchException(String.format(
+                Constants.USER_VERSION_MISMATCH_ERR_MSG, request.email(), expectedVersion))
+            : new EntityNotFoundException(
+                String.format(Constants.USER_NOT_FOUND_BY_EMAIL_ERR_MSG, request.email())));
     return userMapper.toResponse(updated);
   }
 
   @Transactional
   public void deleteByEmail(String email) {
-    if (!userRepository.existsByEmail(email)) {
-      throw new EntityNotFoundException(
-          String.format(Constants.USER_NOT_FOUND_BY_EMAIL_ERR_MSG, email));
-    }
-    userRepository.deleteByEmail(email);
+    userChangeLog.record(List.of(email), () -> {
+      if (!userRepository.existsByEmail(email)) {
+        throw new EntityNotFoundException(
+            String.format(Constants.USER_NOT_FOUND_BY_EMAIL_ERR_MSG, email));
+      }
+      userRepository.deleteByEmail(email);
+      return email;
+    }, deleted -> List.of(Change.deleted(deleted)));
+  }
+
+  @Transactional(readOnly = true)
+  public List<UserResponse> getAllUsers(RoleFilter roles) {
+    return roles == null
+        ? userRepository.findAllResponses()
+        : userRepository.findResponsesByRoles(roles);
+  }
+
+  @Transactional(readOnly = true)
+  public Page<UserResponse> getAllUsers(Pageable pageable, RoleFilter roles) {
+    return roles == null
+        ? userRepository.findAllResponses(pageable)
+        : userRepository.findResponsesByRoles(roles, pageable);
   }
 
+  /**
+   * The stamp and the page are read in one transaction, on the same connection, and the stamp
+   * first: the page may be newer than its stamp, which only costs one extra full read later, but
+   * never older.
+   */
   @Transactional(readOnly = true)
-  public List<UserResponse> getAllUsers() {
-    return userRepository.findAll().stream()
-        .map(userMapper::toResponse)
-        .toList();
+  public Versioned<Page<UserResponse>> getAllUsers(Pageable pageable, RoleFilter roles,
+      Predicate<String> current) {
+    String version = userRepository.lastChange().encode();
+    if (current.test(version)) {
+      return Versioned.unchanged(version);
+    }
+    return new Versioned<>(version, getAllUsers(pageable, roles));
   }
 
   @Transactional(readOnly = true)
-  public Page<UserResponse> getAllUsers(Pageable pageable) {
-    return userRepository.findAll(pageable)
-        .map(userMapper::toResponse);
+  public CursorPageResponse<UserResponse> getAllUsers(KeysetCursor after, Sort.Order order,
+      int size) {
+    Slice<User> slice = userRepository.findAllAfter(after, order, size);
+    List<User> users = slice.getContent();
+    String nextCursor = slice.hasNext()
+        ? KeysetCursor.of(users.get(users.size() - 1), order.getProperty()).encode()
+        : null;
+    return new CursorPageResponse<>(users.stream().map(userMapper::toResponse).toList(),
+        slice.hasNext(), nextCursor);
   }
 
   @Transactional(readOnly = true)
   public UserResponse getByEmail(String email) {
-    return userRepository.findByEmail(email)
-        .map(userMapper::toResponse)
+    return userRepository.findResponseByEmail(email)
         .orElseThrow(() -> new EntityNotFoundException(
             String.format(Constants.USER_NOT_FOUND_BY_EMAIL_ERR_MSG, email)));
   }
+
+  @Transactional(readOnly = true)
+  public void exportUsers(Consumer<UserResponse> consumer) {
+    try (Stream<User> users = userRepository.streamAll()) {
+      users.map(userMapper::toResponse).forEach(consumer);
+    }
+  }
+
+  /**
+   * Validates and writes one chunk; {@code offset} is the position of its first request in the
+   * whole batch.
+   */
+  private List<BulkItemResult> writeChunk(List<UserRequest> requests, int offset,
+      boolean upsert, Set<String> batchEmails, Set<String> batchNames) {
+    BulkItemResult[] results = new BulkItemResult[requests.size()];
+    Map<String, Integer> accepted = new LinkedHashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      UserRequest request = requests.get(i);
+      int index = offset + i;
+      if (request == null) {
+        results[i] = BulkItemResult.rejected(index, null, Constants.USER_REQUEST_MISSING_ERR_MSG);
+        continue;
+      }
+      String violations = validationErrors(request);
+      if (violations.isEmpty()) {
+        violations = roleErrors(request);
+      }
+      if (!violations.isEmpty()) {
+        results[i] = BulkItemResult.rejected(index, request.email(), violations);
+      } else if (!batchEmails.add(request.email())) {
+        results[i] = BulkItemResult.rejected(index, request.email(),
+            String.format(Constants.USER_EMAIL_REPEATED_IN_BATCH_ERR_MSG, request.email()));
+      } else {
+        accepted.put(request.email(), i);
+      }
+    }
+
+    Map<String, User> existingByEmail = userRepository.findAllByEmailIn(accepted.keySet()).stream()
+        .collect(Collectors.toMap(User::getEmail, Function.identity()));
+    Set<String> takenNames = new HashSet<>(userRepository.findExistingNames(
+        accepted.values().stream().map(index -> requests.get(index).name()).toList()));
+
+    List<User> users = new ArrayList<>(accepted.size());
+    List<UserChangeEvent.Type> types = new ArrayList<>(accepted.size());
+    for (int i : accepted.values()) {
+      UserRequest request = requests.get(i);
+      int index = offset + i;
+      User existing = existingByEmail.get(request.email());
+      if (existing != null && !upsert) {
+        results[i] = BulkItemResult.rejected(index, request.email(),
+            String.format(Constants.USER_ALREADY_EXISTS_BY_EMAIL_ERR_MSG, request.email()));
+        continue;
+      }
+      boolean keepsOwnName = existing != null && request.name().equals(existing.getName());
+      if (takenNames.contains(request.name()) && !keepsOwnName) {
+        results[i] = BulkItemResult.rejected(index, request.email(),
+            String.format(Constants.USER_ALREADY_EXISTS_BY_NAME_ERR_MSG, request.name()));
+        continue;
+      }
+      if (!batchNames.add(request.name())) {
+        results[i] = BulkItemResult.rejected(index, request.email(),
+            String.format(Constants.USER_NAME_REPEATED_IN_BATCH_ERR_MSG, request.name()));
+        continue;
+      }
+
+      User user;
+      if (existing == null) {
+        user = userMapper.toUser(request);
+        results[i] = BulkItemResult.created(index, request.email());
+      } else {
+        userMapper.updateUser(request, existing);
+        user = existing;
+        results[i] = BulkItemResult.updated(index, request.email());
+      }
+      users.add(user);
+      types.add(existing == null ? UserChangeEvent.Type.CREATED : UserChangeEvent.Type.UPDATED);
+    }
+
+    userChangeLog.record(accepted.keySet(), () -> userRepository.saveAll(users),
+        saved -> IntStream.range(0, saved.size())
+            .mapToObj(i -> Change.of(types.get(i), saved.get(i)))
+            .toList());
+    userRepository.flushAndClear();
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Role rules are checked with the other request rules, before an existing entity is touched, so
+   * a violation rejects only its item and never leaves a dirty entity behind to be flushed.
+   */
+  private String roleErrors(UserRequest request) {
+    try {
+      userValidator.validate(userMapper.toUser(request));
+      return "";
+    } catch (InvalidUserRolesException ex) {
+      return ex.getMessage();
+    }
+  }
+
+  private String validationErrors(UserRequest request) {
+    return validator.validate(request).stream()
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining("; "));
+  }
 }
\ No newline at end of file
@@ -10,4 +10,26 @@ public final class Constants {
   public static final String USER_ALREADY_EXISTS_BY_EMAIL_ERR_MSG = "User with email %s already exists";
   public static final String USER_NOT_FOUND_BY_EMAIL_ERR_MSG = "User with email %s not found";
   public static final String USER_MUST_HAVE_AT_LEAST_ONE_ROLE_ERR_MSG = "User must have at least one role";
+  public static final String USER_CONFLICTS_WITH_EXISTING_DATA_ERR_MSG = "User conflicts with existing data";
+  public static final String USER_REQUEST_MISSING_ERR_MSG = "User request is missing";
+  public static final String USER_EMAIL_REPEATED_IN_BATCH_ERR_MSG = "User with email %s appears more than once in the batch";
+  public static final String USER_NAME_REPEATED_IN_BATCH_ERR_MSG = "User with username %s appears more than once in the batch";
+  public static final String USER_VERSION_MISMATCH_ERR_MSG = "User with email %s is no longer at version %s";
+
+  // persistence
+  public static final String USERS_EMAIL_CONSTRAINT = "users_email_key";
+  public static final String USERS_NAME_CONSTRAINT = "idx_users_name";
+
+  // pagination
+  public static final int EXPORT_FETCH_SIZE = 500;
+  // matches hibernate.jdbc.batch_size, so a chunk of a bulk write goes out as one JDBC batch
+  public static final int BULK_CHUNK_SIZE = 500;
+  public static final String INVALID_CURSOR_ERR_MSG = "Cursor %s is not valid";
+
+  // changes
+  public static final String USER_CHANGES_EXPIRED_ERR_MSG = "Changes after sequence %s are no longer available";
+  // rows numbered per table in one publish pass on Postgres
+  public static final int USER_CHANGES_PUBLISH_BATCH = 10_000;
+  public static final String INVALID_SYNC_TOKEN_ERR_MSG = "Sync token %s is not valid";
+  public static final String USER_SYNC_EXPIRED_ERR_MSG = "Sync token %s is no longer valid, a full sync is required";
 }
\ No newline at end of file
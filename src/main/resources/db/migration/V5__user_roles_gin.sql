@@ -0,0 +1,2 @@
+-- serves role filters: roles @> ARRAY[...] (all of) and roles && ARRAY[...] (any of)
+CREATE INDEX IF NOT EXISTS idx_users_roles ON users USING GIN (roles);
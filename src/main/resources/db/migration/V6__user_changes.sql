@@ -0,0 +1,11 @@
+-- transactional outbox of user changes, read by sequence
+CREATE TABLE IF NOT EXISTS user_changes
+(
+    sequence    BIGSERIAL PRIMARY KEY,
+    type        VARCHAR(16)  NOT NULL,
+    email       VARCHAR(255) NOT NULL,
+    name        VARCHAR(255),
+    roles       TEXT[],
+    version     BIGINT,
+    occurred_at TIMESTAMPTZ  NOT NULL DEFAULT clock_timestamp()
+);
@@ -0,0 +1,60 @@
+-- incremental sync: every insert and update stamps the row with the next change sequence, and a
+-- delete leaves a tombstone with its own sequence until the email is created again
+CREATE SEQUENCE IF NOT EXISTS users_change_seq;
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS change_seq BIGINT      NOT NULL DEFAULT nextval('users_change_seq'),
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp();
+
+CREATE INDEX IF NOT EXISTS idx_users_change_seq ON users (change_seq);
+
+CREATE TABLE IF NOT EXISTS user_tombstones
+(
+    email      VARCHAR(255) PRIMARY KEY,
+    change_seq BIGINT       NOT NULL DEFAULT nextval('users_change_seq'),
+    deleted_at TIMESTAMPTZ  NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_tombstones_change_seq ON user_tombstones (change_seq);
+
+CREATE OR REPLACE FUNCTION users_touch() RETURNS trigger AS
+$$
+BEGIN
+    NEW.change_seq := nextval('users_change_seq');
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION users_bury() RETURNS trigger AS
+$$
+BEGIN
+    INSERT INTO user_tombstones (email) VALUES (OLD.email)
+    ON CONFLICT (email) DO UPDATE
+        SET change_seq = nextval('users_change_seq'), deleted_at = clock_timestamp();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION users_unbury() RETURNS trigger AS
+$$
+BEGIN
+    DELETE FROM user_tombstones WHERE email = NEW.email;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS users_touch ON users;
+CREATE TRIGGER users_touch
+    BEFORE UPDATE ON users
+    FOR EACH ROW EXECUTE FUNCTION users_touch();
+
+DROP TRIGGER IF EXISTS users_bury ON users;
+CREATE TRIGGER users_bury
+    AFTER DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION users_bury();
+
+DROP TRIGGER IF EXISTS users_unbury ON users;
+CREATE TRIGGER users_unbury
+    AFTER INSERT ON users
+    FOR EACH ROW EXECUTE FUNCTION users_unbury();
@@ -0,0 +1,115 @@
+-- change sequences are handed out after commit instead of by the writers: writes commit their
+-- outbox rows, users and tombstones with a NULL sequence and take no shared lock, and
+-- publish_user_changes numbers the committed rows one pass at a time, so sequences still grow in
+-- the order rows became visible
+CREATE TABLE IF NOT EXISTS user_change_relay
+(
+    id        BOOLEAN PRIMARY KEY DEFAULT true CHECK (id),
+    published BIGINT  NOT NULL
+);
+
+-- numbering continues above both counters used so far, so issued sequences and tokens stay valid
+INSERT INTO user_change_relay (published)
+SELECT greatest((SELECT coalesce(max(sequence), 0) FROM user_changes),
+                (SELECT last_value FROM users_change_seq))
+ON CONFLICT DO NOTHING;
+
+-- the serial column keeps the insert order; the published sequence is set by the relay
+ALTER TABLE user_changes RENAME COLUMN sequence TO id;
+ALTER TABLE user_changes ADD COLUMN IF NOT EXISTS sequence BIGINT;
+UPDATE user_changes SET sequence = id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_user_changes_sequence ON user_changes (sequence);
+CREATE INDEX IF NOT EXISTS idx_user_changes_pending ON user_changes (id) WHERE sequence IS NULL;
+
+ALTER TABLE users
+    ALTER COLUMN change_seq DROP NOT NULL,
+    ALTER COLUMN change_seq DROP DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_users_change_pending ON users (id) WHERE change_seq IS NULL;
+
+ALTER TABLE user_tombstones
+    ALTER COLUMN change_seq DROP NOT NULL,
+    ALTER COLUMN change_seq DROP DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_user_tombstones_pending ON user_tombstones (email)
+    WHERE change_seq IS NULL;
+
+CREATE OR REPLACE FUNCTION users_touch() RETURNS trigger AS
+$$
+BEGIN
+    -- only the relay sets change_seq; any other update waits to be published again
+    IF NEW.change_seq IS NOT DISTINCT FROM OLD.change_seq THEN
+        NEW.change_seq := NULL;
+        NEW.updated_at := clock_timestamp();
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION users_bury() RETURNS trigger AS
+$$
+BEGIN
+    INSERT INTO user_tombstones (email) VALUES (OLD.email)
+    ON CONFLICT (email) DO UPDATE
+        SET change_seq = NULL, deleted_at = clock_timestamp();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP SEQUENCE IF EXISTS users_change_seq;
+
+-- numbers up to batch pending rows of each table and returns how many it numbered
+CREATE OR REPLACE FUNCTION publish_user_changes(batch INTEGER) RETURNS BIGINT AS
+$$
+DECLARE
+    watermark BIGINT;
+    numbered  BIGINT;
+    total     BIGINT := 0;
+BEGIN
+    -- the row lock lets one pass run at a time; every statement below takes a fresh snapshot,
+    -- so it sees the rows the previous pass numbered and every row committed since
+    SELECT published INTO watermark FROM user_change_relay FOR UPDATE;
+
+    -- outbox rows keep their insert order, which is the write order of each email
+    UPDATE user_changes c SET sequence = watermark + p.n
+    FROM (SELECT id, row_number() OVER (ORDER BY id) AS n
+          FROM (SELECT id FROM user_changes
+                WHERE sequence IS NULL
+                ORDER BY id
+                LIMIT batch) pending) p
+    WHERE c.id = p.id;
+    GET DIAGNOSTICS numbered = ROW_COUNT;
+    watermark := watermark + numbered;
+    total := total + numbered;
+
+    -- a row an open transaction is writing again is skipped; its commit leaves it pending for
+    -- the next pass
+    UPDATE users u SET change_seq = watermark + p.n
+    FROM (SELECT id, row_number() OVER (ORDER BY id) AS n
+          FROM (SELECT id FROM users
+                WHERE change_seq IS NULL
+                ORDER BY id
+                LIMIT batch
+                FOR UPDATE SKIP LOCKED) pending) p
+    WHERE u.id = p.id;
+    GET DIAGNOSTICS numbered = ROW_COUNT;
+    watermark := watermark + numbered;
+    total := total + numbered;
+
+    UPDATE user_tombstones t SET change_seq = watermark + p.n
+    FROM (SELECT email, row_number() OVER (ORDER BY email) AS n
+          FROM (SELECT email FROM user_tombstones
+                WHERE change_seq IS NULL
+                ORDER BY email
+                LIMIT batch
+                FOR UPDATE SKIP LOCKED) pending) p
+    WHERE t.email = p.email;
+    GET DIAGNOSTICS numbered = ROW_COUNT;
+    watermark := watermark + numbered;
+    total := total + numbered;
+
+    UPDATE user_change_relay SET published = watermark;
+    RETURN total;
+END;
+$$ LANGUAGE plpgsql;
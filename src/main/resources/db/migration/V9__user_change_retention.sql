@@ -0,0 +1,43 @@
+-- bounded retention for the change outbox and the sync tombstones: the highest sequence dropped
+-- from each is kept as a floor, and readers with a position below it get 410 and resync
+ALTER TABLE user_change_relay
+    ADD COLUMN IF NOT EXISTS changes_purged    BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS tombstones_purged BIGINT NOT NULL DEFAULT 0;
+
+-- keeps the latest keep_changes published outbox rows and the latest keep_tombstones published
+-- tombstones, and returns how many rows it dropped; pending rows are never dropped
+CREATE OR REPLACE FUNCTION prune_user_changes(keep_changes INTEGER, keep_tombstones INTEGER)
+    RETURNS BIGINT AS
+$$
+DECLARE
+    dropped BIGINT;
+    deleted BIGINT;
+    total   BIGINT := 0;
+BEGIN
+    -- runs one at a time and never between the statements of a publish pass
+    PERFORM 1 FROM user_change_relay FOR UPDATE;
+
+    SELECT sequence INTO dropped FROM user_changes
+    WHERE sequence IS NOT NULL
+    ORDER BY sequence DESC
+    OFFSET keep_changes LIMIT 1;
+    IF dropped IS NOT NULL THEN
+        DELETE FROM user_changes WHERE sequence <= dropped;
+        GET DIAGNOSTICS deleted = ROW_COUNT;
+        total := total + deleted;
+        UPDATE user_change_relay SET changes_purged = dropped;
+    END IF;
+
+    SELECT change_seq INTO dropped FROM user_tombstones
+    WHERE change_seq IS NOT NULL
+    ORDER BY change_seq DESC
+    OFFSET keep_tombstones LIMIT 1;
+    IF dropped IS NOT NULL THEN
+        DELETE FROM user_tombstones WHERE change_seq <= dropped;
+        GET DIAGNOSTICS deleted = ROW_COUNT;
+        total := total + deleted;
+        UPDATE user_change_relay SET tombstones_purged = dropped;
+    END IF;
+    RETURN total;
+END;
+$$ LANGUAGE plpgsql;
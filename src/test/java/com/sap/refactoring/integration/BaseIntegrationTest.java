@@ -1,12 +1,14 @@
 package com.sap.refactoring.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.sap.refactoring.dto.request.UserRequest;
 import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
 import com.sap.refactoring.repository.UserRepository;
 import com.sap.refactoring.service.impl.UserServiceImpl;
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -31,6 +33,9 @@ public abstract class BaseIntegrationTest {
   @Autowired
   protected UserRepository userRepository;
 
+  @Autowired
+  protected AsyncCache<String, Optional<UserResponse>> userResponseCache;
+
   protected MockMvc mockMvc;
 
   @BeforeEach
@@ -40,6 +45,7 @@ public abstract class BaseIntegrationTest {
   }
 
   protected void clearTestData() {
+    userResponseCache.synchronous().invalidateAll();
     List<User> allUsers = userRepository.findAll();
     for (User user : allUsers) {
       if (user.getEmail() != null) {
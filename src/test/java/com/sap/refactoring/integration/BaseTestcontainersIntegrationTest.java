@@ -1,12 +1,14 @@
 package com.sap.refactoring.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.sap.refactoring.dto.request.UserRequest;
 import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
 import com.sap.refactoring.repository.UserRepository;
 import com.sap.refactoring.service.impl.UserServiceImpl;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +40,9 @@ public abstract class BaseTestcontainersIntegrationTest {
   protected UserServiceImpl userService;
   @Autowired
   protected UserRepository userRepository;
+
+  @Autowired
+  protected AsyncCache<String, Optional<UserResponse>> userResponseCache;
   protected MockMvc mockMvc;
 
   @DynamicPropertySource
@@ -54,6 +59,7 @@ public abstract class BaseTestcontainersIntegrationTest {
   }
 
   protected void clearTestData() {
+    userResponseCache.synchronous().invalidateAll();
     List<User> allUsers = userRepository.findAll();
     for (User user : allUsers) {
       if (user.getEmail() != null) {
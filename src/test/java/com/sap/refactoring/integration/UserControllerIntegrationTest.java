@@ -2,26 +2,46 @@ package com.sap.refactoring.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.APPLICATION_OCTET_STREAM;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.CursorPageResponse;
+import com.sap.refactoring.dto.response.UserChangesResponse;
 import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.dto.response.UserSyncResponse;
 import com.sap.refactoring.entity.User;
 import com.sap.refactoring.integration.util.TestDataLoader;
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import com.sap.refactoring.util.Constants;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MvcResult;
 
 
+@AutoConfigureObservability
 @DisplayName("UserController InMemory Integration Tests")
 class UserControllerIntegrationTest extends BaseIntegrationTest {
 
@@ -120,6 +140,129 @@ class UserControllerIntegrationTest extends BaseIntegrationTest {
               .content(objectMapper.writeValueAsString(secondUser)))
           .andExpect(status().isConflict());
     }
+
+    @Test
+    @DisplayName("should keep a null role element and still filter on the other roles")
+    void shouldKeepNullRoleElement_andFilterOnOtherRoles() throws Exception {
+      // When & Then
+      mockMvc.perform(post("/api/v1/users")
+              .contentType(APPLICATION_JSON)
+              .content("{\"name\":\"Null Role\",\"email\":\"null-role@example.com\","
+                  + "\"roles\":[\"USER\",null]}"))
+          .andExpect(status().isCreated())
+          .andExpect(jsonPath("$.roles.length()").value(2));
+      mockMvc.perform(get("/api/v1/users").param("role", "USER"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$[0].email").value("null-role@example.com"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Bulk Create User Operations")
+  class BulkCreateUserOperations {
+
+    @Test
+    @DisplayName("should report result per item when bulk creating users")
+    void shouldReportResultPerItem_whenBulkCreatingUsers() throws Exception {
+      // Given
+      createTestUser("Existing User", "existing@example.com", List.of("USER"));
+      List<UserRequest> requests = List.of(
+          new UserRequest("New User", "new@example.com", List.of("USER")),
+          new UserRequest("No Roles", "no-roles@example.com", List.of()),
+          new UserRequest("Again New", "new@example.com", List.of("USER")),
+          new UserRequest("Existing User", "existing@example.com", List.of("ADMIN")));
+
+      // When & Then
+      mockMvc.perform(post("/api/v1/users/bulk")
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(requests)))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.created").value(1))
+          .andExpect(jsonPath("$.rejected").value(3))
+          .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+          .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+          .andExpect(jsonPath("$.items[2].status").value("REJECTED"))
+          .andExpect(jsonPath("$.items[3].status").value("REJECTED"));
+
+      assertThat(getUserCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should update existing users when bulk upserting NDJSON stream")
+    void shouldUpdateExistingUsers_whenBulkUpsertingNdjsonStream() throws Exception {
+      // Given
+      createTestUser("Existing User", "existing@example.com", List.of("USER"));
+      String body = objectMapper.writeValueAsString(
+          new UserRequest("Existing User", "existing@example.com", List.of("ADMIN"))) + "\n"
+          + objectMapper.writeValueAsString(
+          new UserRequest("Streamed User", "streamed@example.com", List.of("USER"))) + "\n";
+
+      // When & Then
+      mockMvc.perform(post("/api/v1/users/bulk")
+              .param("upsert", "true")
+              .contentType(APPLICATION_NDJSON)
+              .content(body))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.created").value(1))
+          .andExpect(jsonPath("$.updated").value(1));
+
+      assertThat(userRepository.findByEmail("existing@example.com").orElseThrow().getRoles())
+          .containsExactly("ADMIN");
+      assertThat(userExists("streamed@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("should write a stream larger than one chunk and catch repeats across chunks")
+    void shouldWriteStreamAcrossChunks_andCatchRepeats() throws Exception {
+      // Given
+      int count = Constants.BULK_CHUNK_SIZE * 2 + 1;
+      StringBuilder body = new StringBuilder();
+      for (int i = 0; i < count; i++) {
+        body.append(objectMapper.writeValueAsString(new UserRequest("Chunked " + i,
+            "chunked-" + i + "@example.com", List.of("USER")))).append('\n');
+      }
+      body.append(objectMapper.writeValueAsString(
+          new UserRequest("Chunked Again", "chunked-0@example.com", List.of("USER"))));
+
+      // When & Then
+      mockMvc.perform(post("/api/v1/users/bulk")
+              .contentType(APPLICATION_NDJSON)
+              .content(body.toString()))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.created").value(count))
+          .andExpect(jsonPath("$.rejected").value(1))
+          .andExpect(jsonPath("$.items[" + count + "].index").value(count))
+          .andExpect(jsonPath("$.items[" + count + "].status").value("REJECTED"));
+
+      assertThat(getUserCount()).isEqualTo(count);
+    }
+  }
+
+  @Nested
+  @DisplayName("Import User Operations")
+  class ImportUserOperations {
+
+    @Test
+    @DisplayName("should upsert valid rows and count rejected ones when importing CSV")
+    void shouldUpsertValidRowsAndCountRejectedOnes_whenImportingCsv() throws Exception {
+      // Given
+      byte[] csv = new ClassPathResource("test-data/import-users.csv").getContentAsByteArray();
+
+      // When & Then
+      mockMvc.perform(post("/api/v1/users/import")
+              .contentType("text/csv")
+              .content(csv))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.read").value(5))
+          .andExpect(jsonPath("$.imported").value(3))
+          .andExpect(jsonPath("$.rejected").value(2));
+
+      assertThat(getUserCount()).isEqualTo(2);
+      assertThat(userRepository.findByEmail("alice.import@example.com").orElseThrow().getName())
+          .isEqualTo("Alice Renamed");
+      assertThat(userRepository.findByEmail("bob.import@example.com").orElseThrow().getName())
+          .isEqualTo("Smith, Bob");
+    }
   }
 
   @Nested
@@ -170,6 +313,269 @@ class UserControllerIntegrationTest extends BaseIntegrationTest {
           });
       assertThat(response).hasSize(users.size());
     }
+
+    @Test
+    @DisplayName("should return only users holding the requested roles")
+    void shouldReturnOnlyUsersHoldingRequestedRoles() throws Exception {
+      // Given
+      createTestUser("Admin User", "admin@example.com", List.of("USER", "ADMIN"));
+      createTestUser("Auditor", "auditor@example.com", List.of("AUDITOR"));
+      createTestUser("Plain User", "plain@example.com", List.of("USER"));
+
+      // When & Then
+      mockMvc.perform(get("/api/v1/users").param("role", "USER").param("role", "ADMIN"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.length()").value(1))
+          .andExpect(jsonPath("$[0].email").value("admin@example.com"));
+      mockMvc.perform(get("/api/v1/users")
+              .param("role", "ADMIN").param("role", "AUDITOR").param("roleMatch", "any")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "email").param("sortDirection", "ASC"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.page.totalElements").value(2))
+          .andExpect(jsonPath("$.content[0].email").value("admin@example.com"))
+          .andExpect(jsonPath("$.content[1].email").value("auditor@example.com"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Conditional Get Operations")
+  class ConditionalGetOperations {
+
+    @Test
+    @DisplayName("should return 304 for a page until any user changes")
+    void shouldReturnNotModifiedForPage_untilAnyUserChanges() throws Exception {
+      // Given
+      createTestUser("Page User", "page@example.com", List.of("USER"));
+      String etag = mockMvc.perform(get("/api/v1/users")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "name").param("sortDirection", "ASC"))
+          .andExpect(status().isOk())
+          .andExpect(header().exists(HttpHeaders.ETAG))
+          .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+      // When & Then
+      mockMvc.perform(get("/api/v1/users")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "name").param("sortDirection", "ASC")
+              .header(HttpHeaders.IF_NONE_MATCH, etag))
+          .andExpect(status().isNotModified())
+          .andExpect(header().string(HttpHeaders.ETAG, etag))
+          .andExpect(content().string(""));
+      createTestUser("Other User", "other@example.com", List.of("USER"));
+      mockMvc.perform(get("/api/v1/users")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "name").param("sortDirection", "ASC")
+              .header(HttpHeaders.IF_NONE_MATCH, etag))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.page.totalElements").value(2));
+    }
+
+    @Test
+    @DisplayName("should return 304 for a user while its ETag matches")
+    void shouldReturnNotModifiedForUser_whileETagMatches() throws Exception {
+      // Given
+      createTestUser("Cached User", "cached@example.com", List.of("USER"));
+      String etag = mockMvc.perform(get("/api/v1/users/cached@example.com"))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+      // When & Then
+      mockMvc.perform(get("/api/v1/users/cached@example.com")
+              .header(HttpHeaders.IF_NONE_MATCH, etag))
+          .andExpect(status().isNotModified())
+          .andExpect(content().string(""));
+      mockMvc.perform(delete("/api/v1/users/cached@example.com"))
+          .andExpect(status().isNoContent());
+      mockMvc.perform(post("/api/v1/users")
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(new UserRequest("Cached Again",
+                  "cached@example.com", List.of("USER")))))
+          .andExpect(status().isCreated());
+      mockMvc.perform(get("/api/v1/users/cached@example.com")
+              .header(HttpHeaders.IF_NONE_MATCH, etag))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.name").value("Cached Again"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Cursor Pagination Operations")
+  class CursorPaginationOperations {
+
+    @Test
+    @DisplayName("should return every user exactly once when following next cursors")
+    void shouldReturnEveryUserExactlyOnce_whenFollowingNextCursors() throws Exception {
+      // Given
+      List<UserRequest> users = testDataLoader.loadValidUsers();
+      createTestUsers(users);
+
+      // When
+      List<String> emails = new ArrayList<>();
+      String cursor = null;
+      do {
+        var pageRequest = get("/api/v1/users/cursor")
+            .param("size", "2")
+            .param("sortBy", "email")
+            .param("sortDirection", "ASC");
+        if (cursor != null) {
+          pageRequest.param("cursor", cursor);
+        }
+        String responseJson = mockMvc.perform(pageRequest)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        CursorPageResponse<UserResponse> page = objectMapper.readValue(responseJson,
+            new TypeReference<CursorPageResponse<UserResponse>>() {
+            });
+        page.content().forEach(user -> emails.add(user.email()));
+        cursor = page.nextCursor();
+      } while (cursor != null);
+
+      // Then
+      assertThat(emails).hasSize(users.size()).isSorted();
+    }
+
+    @Test
+    @DisplayName("should return bad request when cursor is malformed")
+    void shouldReturnBadRequest_whenCursorIsMalformed() throws Exception {
+      // When & Then
+      mockMvc.perform(get("/api/v1/users/cursor")
+              .param("size", "2")
+              .param("sortBy", "email")
+              .param("sortDirection", "ASC")
+              .param("cursor", "not-a-cursor"))
+          .andExpect(status().isBadRequest());
+    }
+  }
+
+  @Nested
+  @DisplayName("Export User Operations")
+  class ExportUserOperations {
+
+    @Test
+    @DisplayName("should stream one JSON document per line when exporting users")
+    void shouldStreamOneJsonDocumentPerLine_whenExportingUsers() throws Exception {
+      // Given
+      List<UserRequest> users = testDataLoader.loadValidUsers();
+      createTestUsers(users);
+
+      // When
+      MvcResult result = mockMvc.perform(get("/api/v1/users/export")
+              .accept(APPLICATION_NDJSON))
+          .andExpect(request().asyncStarted())
+          .andReturn();
+      mockMvc.perform(asyncDispatch(result))
+          .andExpect(status().isOk())
+          .andExpect(content().contentTypeCompatibleWith(APPLICATION_NDJSON));
+
+      // Then
+      List<String> exportedEmails = new ArrayList<>();
+      for (String line : result.getResponse().getContentAsString().lines().toList()) {
+        exportedEmails.add(objectMapper.readValue(line, UserResponse.class).email());
+      }
+      assertThat(exportedEmails)
+          .containsExactlyInAnyOrderElementsOf(users.stream().map(UserRequest::email).toList());
+    }
+
+    @Test
+    @DisplayName("should export a binary snapshot that warm-loads into a new store")
+    void shouldExportSnapshot_thatWarmLoadsIntoNewStore(@TempDir Path directory)
+        throws Exception {
+      // Given
+      List<UserRequest> users = testDataLoader.loadValidUsers();
+      createTestUsers(users);
+
+      // When
+      MvcResult result = mockMvc.perform(get("/api/v1/users/snapshot"))
+          .andExpect(request().asyncStarted())
+          .andReturn();
+      mockMvc.perform(asyncDispatch(result))
+          .andExpect(status().isOk())
+          .andExpect(content().contentType(APPLICATION_OCTET_STREAM));
+
+      // Then
+      Path snapshot = Files.write(directory.resolve("users.snapshot"),
+          result.getResponse().getContentAsByteArray());
+      InMemoryUserRepository loaded = new InMemoryUserRepository();
+      loaded.load(snapshot);
+      assertThat(loaded.findAll()).extracting(User::getEmail)
+          .containsExactlyInAnyOrderElementsOf(users.stream().map(UserRequest::email).toList());
+    }
+  }
+
+  @Nested
+  @DisplayName("Change Feed Operations")
+  class ChangeFeedOperations {
+
+    @Test
+    @DisplayName("should return the changes after a sequence in the order they were applied")
+    void shouldReturnChangesAfterSequence_inAppliedOrder() throws Exception {
+      // Given
+      UserChangesResponse head = objectMapper.readValue(mockMvc.perform(
+              get("/api/v1/users/changes"))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString(), UserChangesResponse.class);
+      userService.createUser(new UserRequest("Feed User", "feed@example.com", List.of("USER")));
+      userService.updateUser(new UserRequest("Feed Renamed", "feed@example.com",
+          List.of("ADMIN")), 0L);
+      userService.deleteByEmail("feed@example.com");
+
+      // When & Then
+      mockMvc.perform(get("/api/v1/users/changes")
+              .param("after", String.valueOf(head.next()))
+              .param("limit", "2"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.changes.length()").value(2))
+          .andExpect(jsonPath("$.changes[0].type").value("CREATED"))
+          .andExpect(jsonPath("$.changes[1].type").value("UPDATED"))
+          .andExpect(jsonPath("$.changes[1].user.name").value("Feed Renamed"))
+          .andExpect(jsonPath("$.next").value(head.next() + 2));
+      mockMvc.perform(get("/api/v1/users/changes")
+              .param("after", String.valueOf(head.next() + 2)))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.changes[0].type").value("DELETED"))
+          .andExpect(jsonPath("$.changes[0].user").isEmpty());
+    }
+
+    @Test
+    @DisplayName("should return only users changed or deleted since a sync token")
+    void shouldReturnUsersChangedSinceSyncToken() throws Exception {
+      // Given
+      userService.createUser(new UserRequest("Sync Kept", "kept@example.com", List.of("USER")));
+      userService.createUser(new UserRequest("Sync Gone", "gone@example.com", List.of("USER")));
+      UserSyncResponse full = objectMapper.readValue(mockMvc.perform(
+              get("/api/v1/users/changes").param("since", ""))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString(), UserSyncResponse.class);
+      userService.updateUser(new UserRequest("Sync Renamed", "kept@example.com",
+          List.of("ADMIN")), null);
+      userService.deleteByEmail("gone@example.com");
+
+      // When & Then
+      assertThat(full.users()).extracting(UserResponse::email)
+          .contains("kept@example.com", "gone@example.com");
+      mockMvc.perform(get("/api/v1/users/changes")
+              .param("since", full.token()))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.users.length()").value(1))
+          .andExpect(jsonPath("$.users[0].name").value("Sync Renamed"))
+          .andExpect(jsonPath("$.deleted[0]").value("gone@example.com"))
+          .andExpect(jsonPath("$.hasMore").value(false));
+      mockMvc.perform(get("/api/v1/users/changes")
+              .param("since", "not-a-token"))
+          .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("should return 410 when the requested sequence is not held")
+    void shouldReturnGone_whenSequenceIsNotHeld() throws Exception {
+      // When & Then
+      mockMvc.perform(get("/api/v1/users/changes")
+              .param("after", String.valueOf(Long.MAX_VALUE)))
+          .andExpect(status().isGone());
+    }
   }
 
   @Nested
@@ -200,6 +606,62 @@ class UserControllerIntegrationTest extends BaseIntegrationTest {
           .andExpect(jsonPath("$.email").value("update@example.com"))
           .andExpect(jsonPath("$.roles").isArray());
     }
+
+    @Test
+    @DisplayName("should update user when If-Match carries the current ETag")
+    void shouldUpdateUser_whenIfMatchCarriesCurrentETag() throws Exception {
+      // Given
+      createTestUser("Original Name", "etag@example.com", List.of("USER"));
+      String etag = mockMvc.perform(get("/api/v1/users/etag@example.com"))
+          .andExpect(status().isOk())
+          .andExpect(header().exists(HttpHeaders.ETAG))
+          .andReturn()
+          .getResponse()
+          .getHeader(HttpHeaders.ETAG);
+      UserRequest updatedUser = new UserRequest("Updated Name", "etag@example.com",
+          List.of("USER"));
+
+      // When & Then
+      String nextEtag = mockMvc.perform(put("/api/v1/users")
+              .header(HttpHeaders.IF_MATCH, etag)
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(updatedUser)))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.name").value("Updated Name"))
+          .andReturn()
+          .getResponse()
+          .getHeader(HttpHeaders.ETAG);
+      assertThat(nextEtag).isNotEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("should return precondition failed when If-Match carries a stale ETag")
+    void shouldReturnPreconditionFailed_whenIfMatchCarriesStaleETag() throws Exception {
+      // Given
+      createTestUser("Original Name", "stale@example.com", List.of("USER"));
+      String etag = mockMvc.perform(get("/api/v1/users/stale@example.com"))
+          .andReturn()
+          .getResponse()
+          .getHeader(HttpHeaders.ETAG);
+      UserRequest firstWriter = new UserRequest("First Writer", "stale@example.com",
+          List.of("USER"));
+      UserRequest secondWriter = new UserRequest("Second Writer", "stale@example.com",
+          List.of("ADMIN"));
+      mockMvc.perform(put("/api/v1/users")
+              .header(HttpHeaders.IF_MATCH, etag)
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(firstWriter)))
+          .andExpect(status().isOk());
+
+      // When & Then
+      mockMvc.perform(put("/api/v1/users")
+              .header(HttpHeaders.IF_MATCH, etag)
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(secondWriter)))
+          .andExpect(status().isPreconditionFailed());
+      assertThat(userRepository.findByEmail("stale@example.com").orElseThrow().getName())
+          .isEqualTo("First Writer");
+    }
   }
 
   @Nested
@@ -256,4 +718,35 @@ class UserControllerIntegrationTest extends BaseIntegrationTest {
           .andExpect(status().isMethodNotAllowed());
     }
   }
+
+  @Nested
+  @DisplayName("Metrics")
+  class Metrics {
+
+    @Test
+    @DisplayName("should publish tagged latency histograms and store gauges")
+    void shouldPublishTaggedLatencyHistogramsAndStoreGauges() throws Exception {
+      // Given
+      createTestUser("Metrics User", "metrics@example.com", List.of("USER"));
+      mockMvc.perform(get("/api/v1/users/missing@example.com"))
+          .andExpect(status().isNotFound());
+
+      // When
+      String scrape = mockMvc.perform(get("/actuator/prometheus"))
+          .andExpect(status().isOk())
+          .andReturn()
+          .getResponse()
+          .getContentAsString();
+
+      // Then
+      assertThat(scrape)
+          .contains("users_service_seconds_bucket")
+          .contains("users_repository_seconds_bucket")
+          .contains("method=\"getByEmail\"")
+          .contains("outcome=\"not-found\"")
+          .contains("profile=\"in_memory\"")
+          .contains("users_store_size")
+          .contains("users_store_index_size");
+    }
+  }
 }
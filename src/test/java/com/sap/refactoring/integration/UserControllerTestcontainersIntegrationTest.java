@@ -7,18 +7,23 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.UserChangesResponse;
 import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.dto.response.UserSyncResponse;
 import com.sap.refactoring.integration.util.TestDataLoader;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ActiveProfiles;
 
 @ActiveProfiles("postgres")
@@ -161,6 +166,135 @@ class UserControllerTestcontainersIntegrationTest extends BaseTestcontainersInte
       });
       assertThat(response).hasSize(users.size());
     }
+
+    @Test
+    @DisplayName("should return only users holding the requested roles (Testcontainers)")
+    void shouldReturnOnlyUsersHoldingRequestedRoles() throws Exception {
+      // Given
+      createTestUser("Admin User", "admin@example.com", List.of("USER", "ADMIN"));
+      createTestUser("Auditor", "auditor@example.com", List.of("AUDITOR"));
+      createTestUser("Plain User", "plain@example.com", List.of("USER"));
+
+      // When & Then
+      mockMvc.perform(get("/api/v1/users").param("role", "USER").param("role", "ADMIN"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.length()").value(1))
+          .andExpect(jsonPath("$[0].email").value("admin@example.com"));
+      mockMvc.perform(get("/api/v1/users")
+              .param("role", "ADMIN").param("role", "AUDITOR").param("roleMatch", "any")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "email").param("sortDirection", "ASC"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.page.totalElements").value(2))
+          .andExpect(jsonPath("$.content[0].email").value("admin@example.com"))
+          .andExpect(jsonPath("$.content[1].email").value("auditor@example.com"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Import User Operations")
+  class ImportUserOperations {
+
+    @Test
+    @DisplayName("should merge the staged CSV rows and count rejected ones (Testcontainers)")
+    void shouldMergeStagedCsvRows_andCountRejectedOnes() throws Exception {
+      // Given
+      byte[] csv = new ClassPathResource("test-data/import-users.csv").getContentAsByteArray();
+
+      // When & Then
+      mockMvc.perform(post("/api/v1/users/import")
+              .contentType("text/csv")
+              .content(csv))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.read").value(5))
+          .andExpect(jsonPath("$.imported").value(3))
+          .andExpect(jsonPath("$.rejected").value(2));
+
+      assertThat(userRepository.findByEmail("alice.import@example.com").orElseThrow().getName())
+          .isEqualTo("Alice Renamed");
+      assertThat(userRepository.findByEmail("bob.import@example.com").orElseThrow().getName())
+          .isEqualTo("Smith, Bob");
+      assertThat(userExists("no-roles.import@example.com")).isFalse();
+    }
+  }
+
+  @Nested
+  @DisplayName("Change Feed Operations")
+  class ChangeFeedOperations {
+
+    @Test
+    @DisplayName("should report a create, update and delete to feed and sync (Testcontainers)")
+    void shouldReportCreateUpdateAndDelete_inFeedAndSync() throws Exception {
+      // Given
+      String email = generateUniqueEmail();
+      String goneEmail = generateUniqueEmail();
+      UserChangesResponse head = objectMapper.readValue(mockMvc.perform(
+              get("/api/v1/users/changes"))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString(), UserChangesResponse.class);
+      UserSyncResponse full = objectMapper.readValue(mockMvc.perform(
+              get("/api/v1/users/changes").param("since", ""))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString(), UserSyncResponse.class);
+      String pageEtag = mockMvc.perform(get("/api/v1/users")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "name").param("sortDirection", "ASC"))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+      // When
+      mockMvc.perform(post("/api/v1/users")
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(
+                  new UserRequest("Sync User", email, List.of("USER")))))
+          .andExpect(status().isCreated());
+      mockMvc.perform(put("/api/v1/users")
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(
+                  new UserRequest("Sync Renamed", email, List.of("ADMIN")))))
+          .andExpect(status().isOk());
+      mockMvc.perform(post("/api/v1/users")
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(
+                  new UserRequest("Sync Gone", goneEmail, List.of("USER")))))
+          .andExpect(status().isCreated());
+      mockMvc.perform(delete("/api/v1/users/" + goneEmail))
+          .andExpect(status().isNoContent());
+
+      // Then
+      mockMvc.perform(get("/api/v1/users/changes")
+              .param("after", String.valueOf(head.next())))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.changes.length()").value(4))
+          .andExpect(jsonPath("$.changes[0].type").value("CREATED"))
+          .andExpect(jsonPath("$.changes[1].type").value("UPDATED"))
+          .andExpect(jsonPath("$.changes[1].user.name").value("Sync Renamed"))
+          .andExpect(jsonPath("$.changes[2].type").value("CREATED"))
+          .andExpect(jsonPath("$.changes[3].type").value("DELETED"))
+          .andExpect(jsonPath("$.changes[3].email").value(goneEmail));
+      mockMvc.perform(get("/api/v1/users/changes")
+              .param("since", full.token()))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.users.length()").value(1))
+          .andExpect(jsonPath("$.users[0].email").value(email))
+          .andExpect(jsonPath("$.users[0].name").value("Sync Renamed"))
+          .andExpect(jsonPath("$.users[0].version").value(1))
+          .andExpect(jsonPath("$.deleted.length()").value(1))
+          .andExpect(jsonPath("$.deleted[0]").value(goneEmail))
+          .andExpect(jsonPath("$.hasMore").value(false));
+      String nextEtag = mockMvc.perform(get("/api/v1/users")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "name").param("sortDirection", "ASC")
+              .header(HttpHeaders.IF_NONE_MATCH, pageEtag))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+      mockMvc.perform(get("/api/v1/users")
+              .param("page", "0").param("size", "10")
+              .param("sortBy", "name").param("sortDirection", "ASC")
+              .header(HttpHeaders.IF_NONE_MATCH, nextEtag))
+          .andExpect(status().isNotModified())
+          .andExpect(content().string(""));
+    }
   }
 
   @Nested
@@ -186,6 +320,36 @@ class UserControllerTestcontainersIntegrationTest extends BaseTestcontainersInte
           .andExpect(jsonPath("$.email").value(email))
           .andExpect(jsonPath("$.roles").isArray());
     }
+
+    @Test
+    @DisplayName("should return precondition failed for a stale If-Match (Testcontainers)")
+    void shouldReturnPreconditionFailed_whenIfMatchCarriesStaleETag() throws Exception {
+      // Given
+      String email = generateUniqueEmail();
+      createTestUser("Original Name", email, List.of("USER"));
+      String etag = mockMvc.perform(get("/api/v1/users/" + email))
+          .andExpect(status().isOk())
+          .andReturn()
+          .getResponse()
+          .getHeader(HttpHeaders.ETAG);
+      mockMvc.perform(put("/api/v1/users")
+              .header(HttpHeaders.IF_MATCH, etag)
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(
+                  new UserRequest("First Writer", email, List.of("USER")))))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.version").value(1));
+
+      // When & Then
+      mockMvc.perform(put("/api/v1/users")
+              .header(HttpHeaders.IF_MATCH, etag)
+              .contentType(APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(
+                  new UserRequest("Second Writer", email, List.of("ADMIN")))))
+          .andExpect(status().isPreconditionFailed());
+      assertThat(userRepository.findByEmail(email).orElseThrow().getName())
+          .isEqualTo("First Writer");
+    }
   }
 
   @Nested
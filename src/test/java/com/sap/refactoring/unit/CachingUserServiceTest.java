@@ -0,0 +1,121 @@
+package com.sap.refactoring.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.service.impl.CachingUserService;
+import com.sap.refactoring.service.impl.UserServiceImpl;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingUserService")
+class CachingUserServiceTest {
+
+  private static final String EMAIL = "john@example.com";
+
+  @Mock
+  private UserServiceImpl delegate;
+
+  private AsyncCache<String, Optional<UserResponse>> cache;
+  private CachingUserService userService;
+  private UserResponse userResponse;
+
+  @BeforeEach
+  void setUp() {
+    cache = Caffeine.newBuilder().maximumSize(100).buildAsync();
+    userService = new CachingUserService(delegate, cache);
+    userResponse = new UserResponse("John Doe", EMAIL, List.of("USER"), 0L);
+  }
+
+  @Test
+  @DisplayName("should serve repeated lookups from the cache")
+  void shouldServeRepeatedLookupsFromCache() {
+    // Given
+    when(delegate.getByEmail(EMAIL)).thenReturn(userResponse);
+
+    // When
+    userService.getByEmail(EMAIL);
+    UserResponse result = userService.getByEmail(EMAIL);
+
+    // Then
+    assertThat(result).isEqualTo(userResponse);
+    verify(delegate, times(1)).getByEmail(EMAIL);
+  }
+
+  @Test
+  @DisplayName("should cache lookups of unknown emails")
+  void shouldCacheMisses() {
+    // Given
+    when(delegate.getByEmail(EMAIL)).thenThrow(new EntityNotFoundException("not found"));
+
+    // When & Then
+    assertThatThrownBy(() -> userService.getByEmail(EMAIL))
+        .isInstanceOf(EntityNotFoundException.class);
+    assertThatThrownBy(() -> userService.getByEmail(EMAIL))
+        .isInstanceOf(EntityNotFoundException.class);
+    verify(delegate, times(1)).getByEmail(EMAIL);
+  }
+
+  @Test
+  @DisplayName("should evict the cached response when the user is updated")
+  void shouldEvictOnUpdate() {
+    // Given
+    UserRequest request = new UserRequest("John Smith", EMAIL, List.of("USER"));
+    UserResponse updated = new UserResponse("John Smith", EMAIL, List.of("USER"), 1L);
+    when(delegate.getByEmail(EMAIL)).thenReturn(userResponse, updated);
+    when(delegate.updateUser(request, 0L)).thenReturn(updated);
+    userService.getByEmail(EMAIL);
+
+    // When
+    userService.updateUser(request, 0L);
+
+    // Then
+    assertThat(userService.getByEmail(EMAIL)).isEqualTo(updated);
+    verify(delegate, times(2)).getByEmail(EMAIL);
+  }
+
+  @Test
+  @DisplayName("should evict a cached miss when the user is created")
+  void shouldEvictMissOnCreate() {
+    // Given
+    UserRequest request = new UserRequest("John Doe", EMAIL, List.of("USER"));
+    cache.synchronous().put(EMAIL, Optional.empty());
+    when(delegate.createUser(request)).thenReturn(userResponse);
+    when(delegate.getByEmail(EMAIL)).thenReturn(userResponse);
+
+    // When
+    userService.createUser(request);
+
+    // Then
+    assertThat(userService.getByEmail(EMAIL)).isEqualTo(userResponse);
+  }
+
+  @Test
+  @DisplayName("should evict the cached response when the user is deleted")
+  void shouldEvictOnDelete() {
+    // Given
+    cache.synchronous().put(EMAIL, Optional.of(userResponse));
+
+    // When
+    userService.deleteByEmail(EMAIL);
+
+    // Then
+    verify(delegate).deleteByEmail(EMAIL);
+    assertThat(cache.synchronous().getIfPresent(EMAIL)).isNull();
+  }
+}
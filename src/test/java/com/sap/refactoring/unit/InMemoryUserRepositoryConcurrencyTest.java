@@ -0,0 +1,183 @@
+package com.sap.refactoring.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserSyncBatch;
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+@DisplayName("InMemoryUserRepository under concurrent writes")
+class InMemoryUserRepositoryConcurrencyTest {
+
+  private static final int THREADS = 8;
+  private static final int OPERATIONS_PER_THREAD = 20_000;
+  private static final int EMAILS = 64;
+  private static final int NAMES = 48;
+
+  private InMemoryUserRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new InMemoryUserRepository();
+  }
+
+  @Test
+  @DisplayName("should keep data and indexes consistent under contended saves, inserts and deletes")
+  void shouldKeepIndexesConsistent_underContendedWrites() throws Exception {
+    // Given
+    ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    // When
+    runConcurrently(() -> {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+        User user = user("name-" + random.nextInt(NAMES), "user-" + random.nextInt(EMAILS));
+        try {
+          switch (random.nextInt(4)) {
+            case 0 -> repository.insert(user);
+            case 1 -> repository.deleteByEmail(user.getEmail());
+            default -> repository.save(user);
+          }
+        } catch (EntityAlreadyExistsException expected) {
+          // contended keys are expected to be rejected
+        } catch (Throwable ex) {
+          failures.add(ex);
+        }
+      }
+    });
+
+    // Then
+    assertThat(failures).isEmpty();
+    assertConsistent();
+  }
+
+  @Test
+  @DisplayName("should let exactly one of many concurrent inserts of the same email succeed")
+  void shouldLetExactlyOneInsertSucceed_whenEmailIsContended() throws Exception {
+    // Given
+    AtomicInteger inserted = new AtomicInteger();
+    AtomicInteger thread = new AtomicInteger();
+
+    // When
+    runConcurrently(() -> {
+      try {
+        repository.insert(user("name-" + thread.incrementAndGet(), "shared"));
+        inserted.incrementAndGet();
+      } catch (EntityAlreadyExistsException expected) {
+        // every other thread loses the race
+      }
+    });
+
+    // Then
+    assertThat(inserted).hasValue(1);
+    assertConsistent();
+  }
+
+  @Test
+  @DisplayName("should let exactly one of many concurrent renames to the same name succeed")
+  void shouldLetExactlyOneRenameSucceed_whenNameIsContended() throws Exception {
+    // Given
+    for (int i = 0; i < THREADS; i++) {
+      repository.insert(user("name-" + i, "user-" + i));
+    }
+    AtomicInteger renamed = new AtomicInteger();
+    AtomicInteger thread = new AtomicInteger();
+
+    // When
+    runConcurrently(() -> {
+      try {
+        repository.save(user("contended", "user-" + thread.getAndIncrement()));
+        renamed.incrementAndGet();
+      } catch (EntityAlreadyExistsException expected) {
+        // the name is already held by the winner
+      }
+    });
+
+    // Then
+    assertThat(renamed).hasValue(1);
+    assertConsistent();
+  }
+
+  private void assertConsistent() {
+    List<User> users = repository.findAll();
+    Set<String> emails = new HashSet<>();
+    Set<String> names = new HashSet<>();
+    for (User user : users) {
+      assertThat(emails.add(user.getEmail())).as("unique email %s", user.getEmail()).isTrue();
+      assertThat(names.add(user.getName())).as("unique name %s", user.getName()).isTrue();
+
+      Optional<User> byEmail = repository.findByEmail(user.getEmail());
+      assertThat(byEmail).isPresent();
+      assertThat(byEmail.get().getId()).isEqualTo(user.getId());
+      assertThat(byEmail.get().getName()).isEqualTo(user.getName());
+      assertThat(repository.existsByName(user.getName())).isTrue();
+    }
+
+    assertThat(repository.size()).isEqualTo(users.size());
+    Map<String, Integer> indexSizes = repository.indexSizes();
+    assertThat(indexSizes.values()).allMatch(size -> size == users.size());
+    assertThat(repository.rolePostings()).isEqualTo(users.stream()
+        .mapToInt(user -> new HashSet<>(user.getRoles()).size())
+        .sum());
+
+    UserSyncBatch changes = repository.findChangedSince(
+        new SyncToken(repository.lastChange().epoch(), 0), users.size() + EMAILS);
+    assertThat(changes.users()).extracting(UserResponse::email)
+        .containsExactlyInAnyOrderElementsOf(emails);
+    assertThat(changes.deleted()).doesNotContainAnyElementsOf(emails);
+    assertThat(repository.changeOrderSize())
+        .isEqualTo(changes.users().size() + changes.deleted().size());
+
+    Page<User> byName = repository.findAll(
+        PageRequest.of(0, Math.max(users.size(), 1), Sort.by("name")));
+    assertThat(byName.getTotalElements()).isEqualTo(users.size());
+    assertThat(byName.getContent()).extracting("email").containsExactlyInAnyOrderElementsOf(emails);
+  }
+
+  private static void runConcurrently(Runnable task) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int i = 0; i < THREADS; i++) {
+      executor.execute(() -> {
+        try {
+          start.await();
+          task.run();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    start.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+  }
+
+  private static User user(String name, String email) {
+    return User.builder()
+        .name(name)
+        .email(email + "@example.com")
+        .roles(List.of("USER"))
+        .build();
+  }
+}
@@ -1,14 +1,34 @@
 package com.sap.refactoring.unit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.ChangesExpiredException;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserSyncBatch;
 import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 @DisplayName("InMemoryUserRepository")
 class InMemoryUserRepositoryTest {
@@ -58,6 +78,50 @@ class InMemoryUserRepositoryTest {
     assertThat(repository.existsByName("John Doe")).isTrue();
   }
 
+  @Test
+  @DisplayName("should reject insert when email or name is already taken")
+  void shouldRejectInsert_whenEmailOrNameIsAlreadyTaken() {
+    // Given
+    repository.insert(validUser);
+    User sameEmail = User.builder().name("Other Name").email("john@example.com")
+        .roles(List.of("USER")).build();
+    User sameName = User.builder().name("John Doe").email("other@example.com")
+        .roles(List.of("USER")).build();
+
+    // When & Then
+    assertThatThrownBy(() -> repository.insert(sameEmail))
+        .isInstanceOf(EntityAlreadyExistsException.class)
+        .hasMessageContaining("john@example.com");
+    assertThatThrownBy(() -> repository.insert(sameName))
+        .isInstanceOf(EntityAlreadyExistsException.class)
+        .hasMessageContaining("John Doe");
+    assertThat(repository.findAll()).hasSize(1);
+    assertThat(repository.existsByEmail("other@example.com")).isFalse();
+    assertThat(repository.existsByName("Other Name")).isFalse();
+  }
+
+  @Test
+  @DisplayName("should apply conditional update only while the version matches")
+  void shouldApplyConditionalUpdate_onlyWhileVersionMatches() {
+    // Given
+    User saved = repository.insert(validUser);
+    User renamed = User.builder().name("John Smith").email("john@example.com")
+        .roles(List.of("USER")).build();
+
+    // When
+    Optional<User> updated = repository.update(renamed, saved.getVersion());
+    Optional<User> stale = repository.update(renamed, saved.getVersion());
+
+    // Then
+    assertThat(updated).isPresent();
+    assertThat(updated.get().getVersion()).isEqualTo(saved.getVersion() + 1);
+    assertThat(updated.get().getId()).isEqualTo(saved.getId());
+    assertThat(stale).isEmpty();
+    assertThat(repository.findByEmail("john@example.com").orElseThrow().getName())
+        .isEqualTo("John Smith");
+    assertThat(repository.existsByName("John Doe")).isFalse();
+  }
+
   @Test
   @DisplayName("should return user when finding by existing email")
   void shouldReturnUser_whenFindingByExistingEmail() {
@@ -115,6 +179,313 @@ class InMemoryUserRepositoryTest {
     assertThat(repository.existsByName("John Doe")).isFalse();
   }
 
+  @Test
+  @DisplayName("should keep id and move name index when updating existing user")
+  void shouldKeepIdAndMoveNameIndex_whenUpdatingExistingUser() {
+    // Given
+    User savedUser = repository.save(validUser);
+    User renamedUser = User.builder()
+        .name("John Renamed")
+        .email("john@example.com")
+        .roles(List.of("USER"))
+        .build();
+
+    // When
+    User updatedUser = repository.save(renamedUser);
+
+    // Then
+    assertThat(updatedUser.getId()).isEqualTo(savedUser.getId());
+    assertThat(repository.findAll()).hasSize(1);
+    assertThat(repository.existsByName("John Doe")).isFalse();
+    assertThat(repository.existsByName("John Renamed")).isTrue();
+    assertThat(repository.findByEmail("john@example.com").orElseThrow().getRoles())
+        .containsExactly("USER");
+  }
+
+  @Test
+  @DisplayName("should not change stored user when returned instance is modified")
+  void shouldNotChangeStoredUser_whenReturnedInstanceIsModified() {
+    // Given
+    repository.save(validUser);
+    User foundUser = repository.findByEmail("john@example.com").orElseThrow();
+
+    // When
+    foundUser.setName("Changed Outside");
+    foundUser.getRoles().clear();
+
+    // Then
+    User storedUser = repository.findByEmail("john@example.com").orElseThrow();
+    assertThat(storedUser.getName()).isEqualTo("John Doe");
+    assertThat(storedUser.getRoles()).containsExactly("USER", "ADMIN");
+    assertThat(repository.existsByName("Changed Outside")).isFalse();
+  }
+
+  @Test
+  @DisplayName("should return requested page in sort order when paginating by name")
+  void shouldReturnRequestedPageInSortOrder_whenPaginatingByName() {
+    // Given
+    List.of("Dave", "Alice", "Eve", "Carol", "Bob").forEach(name -> repository.save(
+        User.builder().name(name).email(name.toLowerCase() + "@example.com")
+            .roles(List.of("USER")).build()));
+
+    // When
+    Page<User> ascending = repository.findAll(PageRequest.of(1, 2, Sort.by("name").ascending()));
+    Page<User> descending = repository.findAll(
+        PageRequest.of(2, 2, Sort.by("email").descending()));
+
+    // Then
+    assertThat(ascending.getTotalElements()).isEqualTo(5);
+    assertThat(ascending.getContent()).extracting("name").containsExactly("Carol", "Dave");
+    assertThat(descending.getContent()).extracting("name").containsExactly("Alice");
+  }
+
+  @Test
+  @DisplayName("should serve read views without materializing users")
+  void shouldServeReadViews() {
+    // Given
+    repository.save(validUser);
+    repository.save(anotherUser);
+
+    // When
+    Optional<UserResponse> found = repository.findResponseByEmail("john@example.com");
+    Page<UserResponse> page = repository.findAllResponses(
+        PageRequest.of(0, 1, Sort.by("name")));
+
+    // Then
+    assertThat(found).contains(new UserResponse("John Doe", "john@example.com",
+        List.of("USER", "ADMIN"), 0L));
+    assertThat(page.getTotalElements()).isEqualTo(2);
+    assertThat(page.getContent()).extracting(UserResponse::name).containsExactly("Jane Smith");
+    assertThat(repository.findAllResponses()).hasSize(2);
+    assertThat(repository.findResponseByEmail("missing@example.com")).isEmpty();
+  }
+
+  @Test
+  @DisplayName("should filter by roles through the role index and follow role changes")
+  void shouldFilterByRoles() {
+    // Given
+    User saved = repository.save(validUser);
+    repository.save(anotherUser);
+    repository.save(User.builder().name("Auditor").email("auditor@example.com")
+        .roles(List.of("AUDITOR")).build());
+
+    // When
+    List<UserResponse> admins = repository.findResponsesByRoles(
+        new RoleFilter(Set.of("USER", "ADMIN"), true));
+    Page<UserResponse> anyOf = repository.findResponsesByRoles(
+        new RoleFilter(Set.of("ADMIN", "AUDITOR"), false), PageRequest.of(0, 1, Sort.by("name")));
+    saved.setRoles(List.of("USER"));
+    repository.save(saved);
+
+    // Then
+    assertThat(admins).extracting(UserResponse::email).containsExactly("john@example.com");
+    assertThat(anyOf.getTotalElements()).isEqualTo(2);
+    assertThat(anyOf.getContent()).extracting(UserResponse::name).containsExactly("Auditor");
+    assertThat(repository.findResponsesByRoles(new RoleFilter(Set.of("ADMIN"), true))).isEmpty();
+    assertThat(repository.findResponsesByRoles(new RoleFilter(Set.of("USER"), true))).hasSize(2);
+  }
+
+  @Test
+  @DisplayName("should keep a null role element without indexing it")
+  void shouldKeepNullRoleWithoutIndexingIt() {
+    // Given
+    User saved = repository.save(User.builder().name("Null Role").email("null-role@example.com")
+        .roles(Arrays.asList("USER", null)).build());
+
+    // When
+    List<UserResponse> users = repository.findResponsesByRoles(
+        new RoleFilter(Set.of("USER"), true));
+    saved.setRoles(List.of("ADMIN"));
+    repository.save(saved);
+
+    // Then
+    assertThat(users).singleElement().satisfies(user ->
+        assertThat(user.roles()).containsExactly("USER", null));
+    assertThat(repository.findResponsesByRoles(new RoleFilter(Set.of("USER"), true))).isEmpty();
+    assertThat(repository.findResponsesByRoles(new RoleFilter(Set.of("ADMIN"), true))).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("should share equal role lists between users and keep their exact order")
+  void shouldShareEqualRoleLists() {
+    // Given
+    repository.save(validUser);
+    repository.save(User.builder().name("Mary Major").email("mary@example.com")
+        .roles(new ArrayList<>(List.of("USER", "ADMIN"))).build());
+    repository.save(User.builder().name("Rick Roe").email("rick@example.com")
+        .roles(new ArrayList<>(List.of("ADMIN", "USER", "ADMIN"))).build());
+
+    // When
+    List<String> john = repository.findResponseByEmail("john@example.com").orElseThrow().roles();
+    List<String> mary = repository.findResponseByEmail("mary@example.com").orElseThrow().roles();
+    User rick = repository.findByEmail("rick@example.com").orElseThrow();
+
+    // Then
+    assertThat(mary).isSameAs(john).containsExactly("USER", "ADMIN");
+    assertThat(rick.getRoles()).containsExactly("ADMIN", "USER", "ADMIN");
+  }
+
+  @Test
+  @DisplayName("should apply all sort orders as one composite comparator")
+  void shouldApplyAllSortOrdersAsOneCompositeComparator() {
+    // Given
+    repository.save(User.builder().name("User A").email("a@example.com").roles(List.of("USER"))
+        .build());
+    repository.save(User.builder().name("User B").email("d@example.com").roles(List.of("USER"))
+        .build());
+    repository.save(User.builder().name("User C").email("b@example.com").roles(List.of("USER"))
+        .build());
+    repository.save(User.builder().name("User D").email("c@example.com").roles(List.of("USER"))
+        .build());
+
+    // When
+    Page<User> byName = repository.findAll(PageRequest.of(0, 3,
+        Sort.by(Sort.Order.asc("name"), Sort.Order.desc("email"))));
+    Page<User> byEmail = repository.findAll(PageRequest.of(0, 3,
+        Sort.by(Sort.Order.desc("email"), Sort.Order.asc("name"))));
+
+    // Then
+    assertThat(byName.getContent()).extracting("email")
+        .containsExactly("a@example.com", "d@example.com", "b@example.com");
+    assertThat(byEmail.getContent()).extracting("name")
+        .containsExactly("User B", "User D", "User C");
+  }
+
+  @Test
+  @DisplayName("should return empty page when offset exceeds total")
+  void shouldReturnEmptyPage_whenOffsetExceedsTotal() {
+    // Given
+    repository.save(validUser);
+
+    // When
+    Page<User> page = repository.findAll(PageRequest.of(3, 10, Sort.by("id")));
+
+    // Then
+    assertThat(page.getContent()).isEmpty();
+    assertThat(page.getTotalElements()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should walk all users once when following keyset cursors")
+  void shouldWalkAllUsersOnce_whenFollowingKeysetCursors() {
+    // Given
+    List.of("Dave", "Alice", "Eve", "Carol", "Bob").forEach(name -> repository.save(
+        User.builder().name(name).email(name.toLowerCase() + "@example.com")
+            .roles(List.of("USER")).build()));
+    Sort.Order order = Sort.Order.desc("name");
+
+    // When
+    Slice<User> first = repository.findAllAfter(null, order, 2);
+    Slice<User> second = repository.findAllAfter(
+        KeysetCursor.of(first.getContent().get(1), "name"), order, 2);
+    Slice<User> last = repository.findAllAfter(
+        KeysetCursor.of(second.getContent().get(1), "name"), order, 2);
+
+    // Then
+    assertThat(first.getContent()).extracting("name").containsExactly("Eve", "Dave");
+    assertThat(second.getContent()).extracting("name").containsExactly("Carol", "Bob");
+    assertThat(last.getContent()).extracting("name").containsExactly("Alice");
+    assertThat(first.hasNext()).isTrue();
+    assertThat(last.hasNext()).isFalse();
+  }
+
+  @Test
+  @DisplayName("should return only the latest changes and deletions since a sync token")
+  void shouldReturnLatestChanges_sinceSyncToken() {
+    // Given
+    User john = repository.save(validUser);
+    repository.save(anotherUser);
+    UserSyncBatch full = repository.findChangedSince(null, 10);
+    john.setName("John Renamed");
+    repository.save(john);
+    repository.save(User.builder().name("Mary Major").email("mary@example.com")
+        .roles(List.of("USER")).build());
+    repository.deleteByEmail("jane@example.com");
+
+    // When
+    UserSyncBatch first = repository.findChangedSince(full.next(), 2);
+    UserSyncBatch second = repository.findChangedSince(first.next(), 2);
+    UserSyncBatch idle = repository.findChangedSince(second.next(), 2);
+
+    // Then
+    assertThat(full.users()).extracting(UserResponse::email)
+        .containsExactly("john@example.com", "jane@example.com");
+    assertThat(first.users()).extracting(UserResponse::name)
+        .containsExactly("John Renamed", "Mary Major");
+    assertThat(first.hasMore()).isTrue();
+    assertThat(second.users()).isEmpty();
+    assertThat(second.deleted()).containsExactly("jane@example.com");
+    assertThat(second.hasMore()).isFalse();
+    assertThat(idle.users()).isEmpty();
+    assertThat(idle.next()).isEqualTo(second.next());
+    assertThatThrownBy(() -> new InMemoryUserRepository().findChangedSince(full.next(), 2))
+        .isInstanceOf(ChangesExpiredException.class);
+    assertThatThrownBy(() -> repository.findChangedSince(
+        new SyncToken(full.next().epoch(), Long.MAX_VALUE), 2))
+        .isInstanceOf(ChangesExpiredException.class);
+  }
+
+  @Test
+  @DisplayName("should expire sync tokens from before the oldest kept tombstone")
+  void shouldExpireSyncTokens_whenTombstonesAreDropped() {
+    // Given
+    repository = new InMemoryUserRepository(Optional.empty(), 2);
+    for (int i = 0; i < 4; i++) {
+      repository.save(User.builder().name("user-" + i).email("user-" + i + "@example.com")
+          .roles(List.of("USER")).build());
+    }
+    SyncToken before = repository.lastChange();
+    repository.deleteByEmail("user-0@example.com");
+    SyncToken afterFirst = repository.lastChange();
+    repository.deleteByEmail("user-1@example.com");
+    repository.deleteByEmail("user-2@example.com");
+
+    // When
+    UserSyncBatch kept = repository.findChangedSince(afterFirst, 10);
+
+    // Then
+    assertThat(kept.deleted()).containsExactly("user-1@example.com", "user-2@example.com");
+    assertThat(repository.changeOrderSize()).isEqualTo(3);
+    assertThatThrownBy(() -> repository.findChangedSince(before, 10))
+        .isInstanceOf(ChangesExpiredException.class);
+  }
+
+  @Test
+  @DisplayName("should warm-load a snapshot into an equivalent store")
+  void shouldWarmLoadSnapshot_intoEquivalentStore(@TempDir Path directory) throws IOException {
+    // Given
+    for (int i = 0; i < 10_000; i++) {
+      repository.insert(User.builder()
+          .name("user-" + i)
+          .email(i % 1000 == 0 ? null : "user-" + i + "@example.com")
+          .roles(i % 10 == 0 ? Arrays.asList("ADMIN", null) : List.of("USER"))
+          .build());
+    }
+    Path snapshot = directory.resolve("users.snapshot");
+    try (OutputStream output = Files.newOutputStream(snapshot)) {
+      repository.writeSnapshot(output);
+    }
+
+    // When
+    InMemoryUserRepository loaded = new InMemoryUserRepository();
+    loaded.load(snapshot);
+
+    // Then
+    assertThat(loaded.findAll())
+        .usingRecursiveFieldByFieldElementComparator()
+        .containsExactlyInAnyOrderElementsOf(repository.findAll());
+    assertThat(loaded.indexSizes()).isEqualTo(repository.indexSizes());
+    // Every tenth user also carries a null role, which is kept but has no posting
+    assertThat(loaded.rolePostings()).isEqualTo(repository.rolePostings()).isEqualTo(10_000);
+    assertThat(loaded.findByEmail("user-10@example.com").orElseThrow().getRoles())
+        .containsExactly("ADMIN", null);
+    assertThat(loaded.findAll(PageRequest.of(3, 7, Sort.by("name"))).getContent())
+        .extracting(User::getName)
+        .containsExactly("user-1016", "user-1017", "user-1018", "user-1019", "user-102",
+            "user-1020", "user-1021");
+    assertThatThrownBy(() -> loaded.load(snapshot)).isInstanceOf(IllegalStateException.class);
+  }
+
   @Test
   @DisplayName("should handle null values gracefully")
   void shouldHandleNullValuesGracefully() {
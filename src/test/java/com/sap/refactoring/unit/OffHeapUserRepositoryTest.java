@@ -0,0 +1,214 @@
+package com.sap.refactoring.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.ChangesExpiredException;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.repository.KeysetCursor;
+import com.sap.refactoring.repository.RoleFilter;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserSyncBatch;
+import com.sap.refactoring.repository.impl.OffHeapUserRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+@DisplayName("OffHeapUserRepository")
+class OffHeapUserRepositoryTest {
+
+  private OffHeapUserRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new OffHeapUserRepository();
+  }
+
+  @Test
+  @DisplayName("should round-trip every field of a stored user")
+  void shouldRoundTripStoredUser() {
+    // Given
+    User saved = repository.save(user("Zoë Ünicode", "zoe@example.com", "USER", null, "ADMIN"));
+
+    // When
+    User found = repository.findByEmail("zoe@example.com").orElseThrow();
+
+    // Then
+    assertThat(found.getId()).isEqualTo(saved.getId());
+    assertThat(found.getName()).isEqualTo("Zoë Ünicode");
+    assertThat(found.getRoles()).containsExactly("USER", null, "ADMIN");
+    assertThat(found.getVersion()).isZero();
+    assertThat(repository.existsByName("Zoë Ünicode")).isTrue();
+  }
+
+  @Test
+  @DisplayName("should keep indexes consistent when a record grows out of its slot or is deleted")
+  void shouldKeepIndexesConsistent_whenRecordMovesOrIsDeleted() {
+    // Given
+    User saved = repository.save(user("John Doe", "john@example.com", "USER"));
+    repository.save(user("Jane Smith", "jane@example.com", "USER"));
+
+    // When
+    saved.setName("J".repeat(500));
+    User moved = repository.save(saved);
+    repository.deleteByEmail("jane@example.com");
+    repository.insert(user("Jane Smith", "jane.new@example.com", "USER"));
+
+    // Then
+    assertThat(moved.getVersion()).isEqualTo(1);
+    assertThat(repository.findByEmail("john@example.com").orElseThrow().getName())
+        .isEqualTo("J".repeat(500));
+    assertThat(repository.existsByName("John Doe")).isFalse();
+    assertThat(repository.existsByEmail("jane@example.com")).isFalse();
+    assertThat(repository.existsByName("Jane Smith")).isTrue();
+    assertThat(repository.size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should reject taken names and stale versions without changing the store")
+  void shouldRejectConflicts() {
+    // Given
+    User john = repository.save(user("John Doe", "john@example.com", "USER"));
+    repository.save(user("Jane Smith", "jane@example.com", "USER"));
+    repository.save(john);
+
+    // When & Then
+    assertThatThrownBy(() -> repository.insert(user("John Doe", "other@example.com", "USER")))
+        .isInstanceOf(EntityAlreadyExistsException.class);
+    assertThatThrownBy(() -> repository.save(user("Jane Smith", "john@example.com", "USER")))
+        .isInstanceOf(EntityAlreadyExistsException.class);
+    assertThatThrownBy(() -> repository.save(john))
+        .isInstanceOf(OptimisticLockingFailureException.class);
+    assertThat(repository.update(john, 0L)).isEmpty();
+    assertThat(repository.findByEmail("john@example.com").orElseThrow().getName())
+        .isEqualTo("John Doe");
+  }
+
+  @Test
+  @DisplayName("should page, filter and walk keyset cursors over many users")
+  void shouldPageFilterAndWalkCursors() {
+    // Given
+    for (int i = 0; i < 1000; i++) {
+      repository.insert(user(String.format("user-%04d", i), "user-" + i + "@example.com",
+          i % 10 == 0 ? "ADMIN" : "USER"));
+    }
+
+    // When
+    Page<User> page = repository.findAll(PageRequest.of(2, 5, Sort.by("name").descending()));
+    List<String> walked = new ArrayList<>();
+    KeysetCursor cursor = null;
+    Slice<User> slice;
+    do {
+      slice = repository.findAllAfter(cursor, Sort.Order.asc("name"), 64);
+      slice.getContent().forEach(user -> walked.add(user.getName()));
+      User last = slice.getContent().get(slice.getContent().size() - 1);
+      cursor = KeysetCursor.of(last, "name");
+    } while (slice.hasNext());
+
+    // Then
+    assertThat(page.getTotalElements()).isEqualTo(1000);
+    assertThat(page.getContent()).extracting(User::getName)
+        .containsExactly("user-0989", "user-0988", "user-0987", "user-0986", "user-0985");
+    assertThat(walked).hasSize(1000).isSorted();
+    assertThat(repository.findResponsesByRoles(new RoleFilter(Set.of("ADMIN"), true)))
+        .hasSize(100);
+  }
+
+  @Test
+  @DisplayName("should sync changed records and tombstones in sequence order")
+  void shouldSyncChangedRecordsAndTombstones() {
+    // Given
+    User john = repository.save(user("John Doe", "john@example.com", "USER"));
+    repository.save(user("Jane Smith", "jane@example.com", "USER"));
+    UserSyncBatch full = repository.findChangedSince(null, 10);
+    repository.deleteByEmail("jane@example.com");
+    john.setName("J".repeat(500));
+    repository.save(john);
+    repository.deleteByEmail("gone@example.com");
+
+    // When
+    UserSyncBatch first = repository.findChangedSince(full.next(), 1);
+    UserSyncBatch second = repository.findChangedSince(first.next(), 10);
+    repository.insert(user("Jane Again", "jane@example.com", "USER"));
+    UserSyncBatch third = repository.findChangedSince(full.next(), 10);
+
+    // Then
+    assertThat(full.users()).hasSize(2);
+    assertThat(full.deleted()).isEmpty();
+    assertThat(first.deleted()).containsExactly("jane@example.com");
+    assertThat(first.hasMore()).isTrue();
+    assertThat(second.users()).extracting(UserResponse::name).containsExactly("J".repeat(500));
+    assertThat(second.hasMore()).isFalse();
+    assertThat(third.deleted()).isEmpty();
+    assertThat(third.users()).extracting(UserResponse::email)
+        .containsExactly("john@example.com", "jane@example.com");
+  }
+
+  @Test
+  @DisplayName("should stream every stored user once across chunks")
+  void shouldStreamEveryStoredUserOnce_acrossChunks() {
+    // Given
+    for (int i = 0; i < 2500; i++) {
+      repository.save(user("user-" + i, "user-" + i + "@example.com", "USER"));
+    }
+    for (int i = 0; i < 2500; i += 3) {
+      repository.deleteByEmail("user-" + i + "@example.com");
+    }
+
+    // When
+    List<String> streamed;
+    try (Stream<User> users = repository.streamAll()) {
+      streamed = users.map(User::getEmail).toList();
+    }
+
+    // Then
+    assertThat(streamed).hasSize(repository.size())
+        .doesNotHaveDuplicates()
+        .containsExactlyInAnyOrderElementsOf(repository.findAll().stream()
+            .map(User::getEmail)
+            .toList());
+  }
+
+  @Test
+  @DisplayName("should expire sync tokens from before the oldest kept tombstone")
+  void shouldExpireSyncTokens_whenTombstonesAreDropped() {
+    // Given
+    repository = new OffHeapUserRepository(2);
+    for (int i = 0; i < 4; i++) {
+      repository.save(user("user-" + i, "user-" + i + "@example.com", "USER"));
+    }
+    SyncToken before = repository.lastChange();
+    repository.deleteByEmail("user-0@example.com");
+    SyncToken afterFirst = repository.lastChange();
+    repository.deleteByEmail("user-1@example.com");
+    repository.deleteByEmail("user-2@example.com");
+
+    // When
+    UserSyncBatch kept = repository.findChangedSince(afterFirst, 10);
+
+    // Then
+    assertThat(kept.deleted()).containsExactly("user-1@example.com", "user-2@example.com");
+    assertThatThrownBy(() -> repository.findChangedSince(before, 10))
+        .isInstanceOf(ChangesExpiredException.class);
+  }
+
+  private static User user(String name, String email, String... roles) {
+    return User.builder()
+        .name(name)
+        .email(email)
+        .roles(new ArrayList<>(Arrays.asList(roles)))
+        .build();
+  }
+}
@@ -0,0 +1,159 @@
+package com.sap.refactoring.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.UserResponse;
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.exception.EntityAlreadyExistsException;
+import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.exception.InvalidUserRolesException;
+import com.sap.refactoring.exception.VersionMismatchException;
+import com.sap.refactoring.mapper.UserMapper;
+import com.sap.refactoring.repository.ReactiveUserRepository;
+import com.sap.refactoring.service.impl.ReactiveUserServiceImpl;
+import com.sap.refactoring.validation.UserValidator;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReactiveUserService")
+class ReactiveUserServiceTest {
+
+  @Mock
+  private ReactiveUserRepository userRepository;
+
+  @Mock
+  private UserMapper userMapper;
+
+  @Mock
+  private UserValidator userValidator;
+
+  @InjectMocks
+  private ReactiveUserServiceImpl userService;
+
+  private UserRequest request;
+  private User user;
+  private UserResponse response;
+
+  @BeforeEach
+  void setUp() {
+    request = new UserRequest("John Doe", "john@example.com", List.of("USER"));
+    user = User.builder()
+        .id(UUID.randomUUID())
+        .name("John Doe")
+        .email("john@example.com")
+        .roles(List.of("USER"))
+        .version(0L)
+        .build();
+    response = new UserResponse("John Doe", "john@example.com", List.of("USER"), 0L);
+  }
+
+  @Test
+  @DisplayName("should create user when insert emits the stored row")
+  void shouldCreateUser_whenInsertEmitsStoredRow() {
+    // Given
+    when(userMapper.toUser(request)).thenReturn(user);
+    when(userRepository.insert(user)).thenReturn(Mono.just(user));
+    when(userMapper.toResponse(user)).thenReturn(response);
+
+    // When & Then
+    StepVerifier.create(userService.createUser(request))
+        .expectNext(response)
+        .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("should report a name conflict when insert is skipped and the email is free")
+  void shouldReportNameConflict_whenInsertIsSkippedAndEmailIsFree() {
+    // Given
+    when(userMapper.toUser(request)).thenReturn(user);
+    when(userRepository.insert(user)).thenReturn(Mono.empty());
+    when(userRepository.existsByEmail("john@example.com")).thenReturn(Mono.just(false));
+
+    // When & Then
+    StepVerifier.create(userService.createUser(request))
+        .expectErrorSatisfies(error -> assertThat(error)
+            .isInstanceOf(EntityAlreadyExistsException.class)
+            .hasMessageContaining("John Doe"))
+        .verify();
+  }
+
+  @Test
+  @DisplayName("should signal validation failures without touching the repository")
+  void shouldSignalValidationFailure_withoutTouchingRepository() {
+    // Given
+    when(userMapper.toUser(request)).thenReturn(user);
+    doThrow(new InvalidUserRolesException("no roles"))
+        .when(userValidator).validate(user);
+
+    // When & Then
+    StepVerifier.create(userService.createUser(request))
+        .expectError(InvalidUserRolesException.class)
+        .verify();
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  @DisplayName("should signal a version mismatch when the conditional update matches nothing")
+  void shouldSignalVersionMismatch_whenConditionalUpdateMatchesNothing() {
+    // Given
+    when(userMapper.toUser(request)).thenReturn(user);
+    when(userRepository.update(user, 4L)).thenReturn(Mono.empty());
+    when(userRepository.existsByEmail("john@example.com")).thenReturn(Mono.just(true));
+
+    // When & Then
+    StepVerifier.create(userService.updateUser(request, 4L))
+        .expectError(VersionMismatchException.class)
+        .verify();
+  }
+
+  @Test
+  @DisplayName("should signal not found when deleting an unknown email")
+  void shouldSignalNotFound_whenDeletingUnknownEmail() {
+    // Given
+    when(userRepository.deleteByEmail("ghost@example.com")).thenReturn(Mono.just(false));
+
+    // When & Then
+    StepVerifier.create(userService.deleteByEmail("ghost@example.com"))
+        .expectError(EntityNotFoundException.class)
+        .verify();
+  }
+
+  @Test
+  @DisplayName("should fetch one extra row to decide whether another page follows")
+  void shouldFetchOneExtraRow_toDecideWhetherAnotherPageFollows() {
+    // Given
+    User second = User.builder().id(UUID.randomUUID()).name("Mary").email("mary@example.com")
+        .roles(List.of("USER")).version(0L).build();
+    when(userRepository.findAllAfter(eq(null), any(Sort.Order.class), anyInt()))
+        .thenReturn(Flux.just(user, second));
+    when(userMapper.toResponse(user)).thenReturn(response);
+
+    // When & Then
+    StepVerifier.create(userService.getAllUsers(null, Sort.Order.asc("name"), 1))
+        .assertNext(page -> {
+          assertThat(page.content()).containsExactly(response);
+          assertThat(page.hasNext()).isTrue();
+          assertThat(page.nextCursor()).isNotNull();
+        })
+        .verifyComplete();
+  }
+}
@@ -0,0 +1,130 @@
+package com.sap.refactoring.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import com.sap.refactoring.config.ReplicaLagMonitor;
+import com.sap.refactoring.config.ReplicaRoutingDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReplicaRoutingDataSource")
+class ReplicaRoutingDataSourceTest {
+
+  @Mock
+  private DataSource primary;
+  @Mock
+  private DataSource firstReplica;
+  @Mock
+  private DataSource secondReplica;
+  @Mock
+  private Connection primaryConnection;
+  @Mock
+  private Connection firstReplicaConnection;
+  @Mock
+  private Connection secondReplicaConnection;
+  @Mock
+  private ReplicaLagMonitor lagMonitor;
+
+  private ReplicaRoutingDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+    lenient().when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+    lenient().when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+    dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica),
+        lagMonitor, Duration.ofMinutes(1));
+    dataSource.afterPropertiesSet();
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.clear();
+  }
+
+  @Test
+  @DisplayName("should route read-write transactions to the primary")
+  void shouldRouteReadWriteTransactionsToPrimary() throws SQLException {
+    // Given
+    beginTransaction(false);
+
+    // When
+    Connection connection = dataSource.getConnection();
+
+    // Then
+    assertThat(connection).isSameAs(primaryConnection);
+  }
+
+  @Test
+  @DisplayName("should spread read-only transactions over the replicas")
+  void shouldSpreadReadOnlyTransactionsOverReplicas() throws SQLException {
+    // Given
+    when(lagMonitor.isHealthy(0)).thenReturn(true);
+    when(lagMonitor.isHealthy(1)).thenReturn(true);
+    beginTransaction(true);
+
+    // When
+    List<Connection> connections = List.of(dataSource.getConnection(),
+        dataSource.getConnection());
+
+    // Then
+    assertThat(connections).containsExactlyInAnyOrder(firstReplicaConnection,
+        secondReplicaConnection);
+  }
+
+  @Test
+  @DisplayName("should skip a lagging replica and fall back to the primary when all lag")
+  void shouldSkipLaggingReplicas() throws SQLException {
+    // Given
+    when(lagMonitor.isHealthy(0)).thenReturn(false);
+    when(lagMonitor.isHealthy(1)).thenReturn(true, false);
+    beginTransaction(true);
+
+    // When
+    Connection healthy = dataSource.getConnection();
+    Connection fallback = dataSource.getConnection();
+
+    // Then
+    assertThat(healthy).isSameAs(secondReplicaConnection);
+    assertThat(fallback).isSameAs(primaryConnection);
+  }
+
+  @Test
+  @DisplayName("should keep reads on the primary within the stickiness window after a commit")
+  void shouldKeepReadsOnPrimaryAfterCommit() throws SQLException {
+    // Given
+    beginTransaction(false);
+    dataSource.getConnection();
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    TransactionSynchronizationManager.clear();
+    beginTransaction(true);
+
+    // When
+    Connection connection = dataSource.getConnection();
+
+    // Then
+    assertThat(connection).isSameAs(primaryConnection);
+  }
+
+  private void beginTransaction(boolean readOnly) {
+    TransactionSynchronizationManager.initSynchronization();
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+  }
+}
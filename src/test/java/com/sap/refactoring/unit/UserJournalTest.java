@@ -0,0 +1,200 @@
+package com.sap.refactoring.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sap.refactoring.entity.User;
+import com.sap.refactoring.repository.impl.InMemoryUserRepository;
+import com.sap.refactoring.repository.impl.UserJournal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("UserJournal")
+class UserJournalTest {
+
+  @TempDir
+  Path directory;
+
+  private UserJournal journal;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    journal.close();
+  }
+
+  @Test
+  @DisplayName("should recover every write by replaying the log")
+  void shouldRecoverWrites_fromLog() throws IOException {
+    // Given
+    InMemoryUserRepository repository = open();
+    User john = repository.save(user("John Doe", "john@example.com", "USER"));
+    repository.save(user("Jane Smith", "jane@example.com", "ADMIN"));
+    john.setName("John Renamed");
+    repository.save(john);
+    repository.deleteByEmail("jane@example.com");
+    journal.close();
+
+    // When
+    InMemoryUserRepository recovered = open();
+
+    // Then
+    User found = recovered.findByEmail("john@example.com").orElseThrow();
+    assertThat(found.getId()).isEqualTo(john.getId());
+    assertThat(found.getName()).isEqualTo("John Renamed");
+    assertThat(found.getVersion()).isEqualTo(1);
+    assertThat(recovered.existsByEmail("jane@example.com")).isFalse();
+    assertThat(recovered.existsByName("John Doe")).isFalse();
+    assertThat(recovered.size()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should recover from a snapshot plus the log written after it")
+  void shouldRecoverWrites_fromSnapshotAndLog() throws IOException {
+    // Given
+    InMemoryUserRepository repository = open();
+    for (int i = 0; i < 20_000; i++) {
+      repository.insert(user("user-" + i, "user-" + i + "@example.com", "USER"));
+    }
+    journal.snapshot();
+    repository.deleteByEmail("user-0@example.com");
+    repository.insert(user("late", "late@example.com", "ADMIN"));
+    journal.close();
+
+    // When
+    InMemoryUserRepository recovered = open();
+
+    // Then
+    assertThat(recovered.size()).isEqualTo(20_000);
+    assertThat(recovered.existsByEmail("user-0@example.com")).isFalse();
+    assertThat(recovered.existsByName("late")).isTrue();
+    assertThat(files("snapshot-")).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("should recover writes applied in parallel in the order they became visible")
+  void shouldRecoverParallelWrites() throws IOException {
+    // Given
+    InMemoryUserRepository repository = open();
+    IntStream.range(0, 4_000).parallel().forEach(i ->
+        repository.insert(user("user-" + i, "user-" + i + "@example.com", "USER")));
+    IntStream.range(0, 4_000).parallel().forEach(i -> {
+      if (i % 2 == 0) {
+        User user = repository.findByEmail("user-" + i + "@example.com").orElseThrow();
+        user.setName("renamed-" + i);
+        repository.save(user);
+      } else {
+        repository.deleteByEmail("user-" + i + "@example.com");
+      }
+    });
+    List<User> expected = repository.findAll();
+    journal.close();
+
+    // When
+    InMemoryUserRepository recovered = open();
+
+    // Then
+    assertThat(recovered.findAll())
+        .usingRecursiveFieldByFieldElementComparator()
+        .containsExactlyInAnyOrderElementsOf(expected);
+    assertThat(recovered.size()).isEqualTo(2_000);
+  }
+
+  @Test
+  @DisplayName("should delete a half-written snapshot left by a crash")
+  void shouldDeleteHalfWrittenSnapshot() throws IOException {
+    // Given
+    InMemoryUserRepository repository = open();
+    repository.save(user("John Doe", "john@example.com", "USER"));
+    journal.close();
+    Path temporary = directory.resolve(String.format("snapshot-%020d.tmp", 7));
+    Files.write(temporary, new byte[]{1, 2, 3});
+
+    // When
+    InMemoryUserRepository recovered = open();
+
+    // Then
+    assertThat(temporary).doesNotExist();
+    assertThat(recovered.existsByEmail("john@example.com")).isTrue();
+  }
+
+  @Test
+  @DisplayName("should drop a torn entry at the end of the log")
+  void shouldDropTornTail() throws IOException {
+    // Given
+    InMemoryUserRepository repository = open();
+    repository.save(user("John Doe", "john@example.com", "USER"));
+    journal.close();
+    Path segment = files("wal-").getLast();
+    Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+    // When
+    InMemoryUserRepository recovered = open();
+    recovered.save(user("Jane Smith", "jane@example.com", "USER"));
+    journal.close();
+
+    // Then
+    assertThat(recovered.size()).isEqualTo(2);
+    assertThat(open().size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should refuse writes once a scheduled snapshot fails")
+  void shouldRefuseWrites_whenScheduledSnapshotFails() throws Exception {
+    // Given
+    InMemoryUserRepository repository = open(Duration.ofMillis(20));
+    // a directory where the first snapshot file goes makes writing the snapshot fail
+    Files.createDirectory(directory.resolve(String.format("snapshot-%020d.tmp", 2)));
+    repository.save(user("John Doe", "john@example.com", "USER"));
+
+    // When
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (!journal.isFailed() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    // Then
+    assertThat(journal.isFailed()).isTrue();
+    assertThatThrownBy(() -> repository.save(user("Jane Smith", "jane@example.com", "USER")))
+        .isInstanceOf(UncheckedIOException.class);
+    assertThat(repository.existsByEmail("jane@example.com")).isFalse();
+  }
+
+  private InMemoryUserRepository open() {
+    return open(Duration.ofHours(1));
+  }
+
+  private InMemoryUserRepository open(Duration snapshotInterval) {
+    journal = new UserJournal(directory, UserJournal.FsyncPolicy.ALWAYS, Duration.ofMillis(10),
+        snapshotInterval);
+    return new InMemoryUserRepository(Optional.of(journal));
+  }
+
+  private List<Path> files(String prefix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().startsWith(prefix))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static User user(String name, String email, String... roles) {
+    return User.builder()
+        .name(name)
+        .email(email)
+        .roles(new ArrayList<>(List.of(roles)))
+        .build();
+  }
+}
@@ -0,0 +1,71 @@
+package com.sap.refactoring.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.service.ImportFormat;
+import com.sap.refactoring.service.impl.UserRequestReader;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("UserRequestReader")
+class UserRequestReaderTest {
+
+  private UserRequestReader reader;
+
+  @BeforeEach
+  void setUp() {
+    reader = new UserRequestReader(new ObjectMapper());
+  }
+
+  @Test
+  @DisplayName("should parse quoted CSV fields and split roles when reading CSV")
+  void shouldParseQuotedCsvFieldsAndSplitRoles_whenReadingCsv() {
+    // Given
+    String csv = """
+        name,email,roles
+        "Smith, \"\"Bob\"\"",bob@example.com,ADMIN|USER
+        Broken Row,broken@example.com
+        """;
+
+    // When
+    List<UserRequest> requests = read(csv, ImportFormat.CSV);
+
+    // Then
+    assertThat(requests).containsExactly(
+        new UserRequest("Smith, \"Bob\"", "bob@example.com", List.of("ADMIN", "USER")),
+        new UserRequest(null, null, List.of()));
+  }
+
+  @Test
+  @DisplayName("should read one request per line when reading NDJSON")
+  void shouldReadOneRequestPerLine_whenReadingNdjson() {
+    // Given
+    String ndjson = """
+        {"name":"Alice","email":"alice@example.com","roles":["USER"]}
+
+        not json
+        """;
+
+    // When
+    List<UserRequest> requests = read(ndjson, ImportFormat.NDJSON);
+
+    // Then
+    assertThat(requests).containsExactly(
+        new UserRequest("Alice", "alice@example.com", List.of("USER")),
+        new UserRequest(null, null, List.of()));
+  }
+
+  private List<UserRequest> read(String payload, ImportFormat format) {
+    try (Stream<UserRequest> requests = reader.read(
+        new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)), format)) {
+      return requests.toList();
+    }
+  }
+}
@@ -2,20 +2,29 @@ package com.sap.refactoring.unit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.sap.refactoring.dto.request.UserRequest;
+import com.sap.refactoring.dto.response.UserChangeEvent;
 import com.sap.refactoring.dto.response.UserResponse;
 import com.sap.refactoring.entity.User;
 import com.sap.refactoring.exception.EntityAlreadyExistsException;
 import com.sap.refactoring.exception.EntityNotFoundException;
+import com.sap.refactoring.exception.VersionMismatchException;
 import com.sap.refactoring.mapper.UserMapper;
+import com.sap.refactoring.repository.SyncToken;
+import com.sap.refactoring.repository.UserChangeLog;
 import com.sap.refactoring.repository.UserRepository;
+import com.sap.refactoring.repository.impl.InMemoryUserChangeLog;
+import com.sap.refactoring.service.Versioned;
 import com.sap.refactoring.service.impl.UserServiceImpl;
 import com.sap.refactoring.validation.UserValidator;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,7 +33,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("UserService")
@@ -39,6 +53,9 @@ class UserServiceTest {
   @Mock
   private UserValidator userValidator;
 
+  @Spy
+  private UserChangeLog userChangeLog = new InMemoryUserChangeLog(16);
+
   @InjectMocks
   private UserServiceImpl userService;
 
@@ -55,7 +72,8 @@ class UserServiceTest {
         .email("john@example.com")
         .roles(List.of("USER", "ADMIN"))
         .build();
-    validUserResponse = new UserResponse("John Doe", "john@example.com", List.of("USER", "ADMIN"));
+    validUserResponse = new UserResponse("John Doe", "john@example.com", List.of("USER", "ADMIN"),
+        0L);
   }
 
   @Test
@@ -63,9 +81,7 @@ class UserServiceTest {
   void shouldCreateUserSuccessfully_whenAllValidationsPass() {
     // Given
     when(userMapper.toUser(validUserRequest)).thenReturn(validUser);
-    when(userRepository.existsByName("John Doe")).thenReturn(false);
-    when(userRepository.existsByEmail("john@example.com")).thenReturn(false);
-    when(userRepository.save(validUser)).thenReturn(validUser);
+    when(userRepository.insert(validUser)).thenReturn(validUser);
     when(userMapper.toResponse(validUser)).thenReturn(validUserResponse);
 
     // When
@@ -74,7 +90,32 @@ class UserServiceTest {
     // Then
     assertThat(result).isEqualTo(validUserResponse);
     verify(userValidator).validate(validUser);
-    verify(userRepository).save(validUser);
+    verify(userRepository).insert(validUser);
+    verify(userRepository, never()).existsByEmail(any());
+    verify(userRepository, never()).existsByName(any());
+  }
+
+  @Test
+  @DisplayName("should record a change only for writes that were applied")
+  void shouldRecordChange_onlyForAppliedWrites() {
+    // Given
+    when(userMapper.toUser(validUserRequest)).thenReturn(validUser);
+    when(userRepository.insert(validUser)).thenReturn(validUser);
+    when(userRepository.update(validUser, 3L)).thenReturn(Optional.empty());
+    when(userRepository.existsByEmail("john@example.com")).thenReturn(true);
+
+    // When
+    userService.createUser(validUserRequest);
+    assertThatThrownBy(() -> userService.updateUser(validUserRequest, 3L))
+        .isInstanceOf(VersionMismatchException.class);
+    userService.deleteByEmail("john@example.com");
+
+    // Then
+    assertThat(userChangeLog.findAfter(0, 10, Duration.ZERO))
+        .extracting(UserChangeEvent::sequence, UserChangeEvent::type, UserChangeEvent::email)
+        .containsExactly(
+            tuple(1L, UserChangeEvent.Type.CREATED, "john@example.com"),
+            tuple(2L, UserChangeEvent.Type.DELETED, "john@example.com"));
   }
 
   @Test
@@ -82,8 +123,8 @@ class UserServiceTest {
   void shouldThrowEntityAlreadyExistsException_whenUserWithSameEmailExists() {
     // Given
     when(userMapper.toUser(validUserRequest)).thenReturn(validUser);
-    when(userRepository.existsByName("John Doe")).thenReturn(false);
-    when(userRepository.existsByEmail("john@example.com")).thenReturn(true);
+    when(userRepository.insert(validUser)).thenThrow(
+        new EntityAlreadyExistsException("User with email john@example.com already exists"));
 
     // When & Then
     assertThatThrownBy(() -> userService.createUser(validUserRequest))
@@ -97,17 +138,46 @@ class UserServiceTest {
   @DisplayName("should update user successfully when user exists")
   void shouldUpdateUserSuccessfully_whenUserExists() {
     // Given
-    when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(validUser));
-    when(userRepository.save(any(User.class))).thenReturn(validUser);
-    when(userMapper.toResponse(any(User.class))).thenReturn(validUserResponse);
+    when(userMapper.toUser(validUserRequest)).thenReturn(validUser);
+    when(userRepository.update(validUser, 0L)).thenReturn(Optional.of(validUser));
+    when(userMapper.toResponse(validUser)).thenReturn(validUserResponse);
 
     // When
-    UserResponse result = userService.updateUser(validUserRequest);
+    UserResponse result = userService.updateUser(validUserRequest, 0L);
 
     // Then
     assertThat(result).isEqualTo(validUserResponse);
     verify(userValidator).validate(validUser);
-    verify(userRepository).save(validUser);
+    verify(userRepository).update(validUser, 0L);
+    verify(userRepository, never()).findByEmail(any());
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("should throw VersionMismatchException when the stored version moved on")
+  void shouldThrowVersionMismatchException_whenStoredVersionMovedOn() {
+    // Given
+    when(userMapper.toUser(validUserRequest)).thenReturn(validUser);
+    when(userRepository.update(validUser, 3L)).thenReturn(Optional.empty());
+    when(userRepository.existsByEmail("john@example.com")).thenReturn(true);
+
+    // When & Then
+    assertThatThrownBy(() -> userService.updateUser(validUserRequest, 3L))
+        .isInstanceOf(VersionMismatchException.class)
+        .hasMessageContaining("john@example.com");
+  }
+
+  @Test
+  @DisplayName("should throw EntityNotFoundException when updating non-existent user")
+  void shouldThrowEntityNotFoundException_whenUpdatingNonExistentUser() {
+    // Given
+    when(userMapper.toUser(validUserRequest)).thenReturn(validUser);
+    when(userRepository.update(validUser, null)).thenReturn(Optional.empty());
+    when(userRepository.existsByEmail("john@example.com")).thenReturn(false);
+
+    // When & Then
+    assertThatThrownBy(() -> userService.updateUser(validUserRequest, null))
+        .isInstanceOf(EntityNotFoundException.class);
   }
 
   @Test
@@ -115,15 +185,15 @@ class UserServiceTest {
   void shouldReturnUser_whenFindingByExistingEmail() {
     // Given
     String email = "john@example.com";
-    when(userRepository.findByEmail(email)).thenReturn(Optional.of(validUser));
-    when(userMapper.toResponse(validUser)).thenReturn(validUserResponse);
+    when(userRepository.findResponseByEmail(email)).thenReturn(Optional.of(validUserResponse));
 
     // When
     UserResponse result = userService.getByEmail(email);
 
     // Then
     assertThat(result).isEqualTo(validUserResponse);
-    verify(userRepository).findByEmail(email);
+    verify(userRepository).findResponseByEmail(email);
+    verify(userRepository, never()).findByEmail(any());
   }
 
   @Test
@@ -131,11 +201,34 @@ class UserServiceTest {
   void shouldThrowEntityNotFoundException_whenUserWithEmailDoesNotExist() {
     // Given
     String email = "nonexistent@example.com";
-    when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+    when(userRepository.findResponseByEmail(email)).thenReturn(Optional.empty());
 
     // When & Then
     assertThatThrownBy(() -> userService.getByEmail(email))
         .isInstanceOf(EntityNotFoundException.class)
         .hasMessageContaining(email);
   }
+
+  @Test
+  @DisplayName("should skip reading the page when the caller holds the current version")
+  void shouldSkipReadingPage_whenCallerHoldsCurrentVersion() {
+    // Given
+    SyncToken head = new SyncToken(1L, 42L);
+    Pageable pageable = PageRequest.of(0, 10);
+    when(userRepository.lastChange()).thenReturn(head);
+    when(userRepository.findAllResponses(pageable))
+        .thenReturn(new PageImpl<>(List.of(validUserResponse), pageable, 1));
+
+    // When
+    Versioned<Page<UserResponse>> unchanged =
+        userService.getAllUsers(pageable, null, head.encode()::equals);
+    Versioned<Page<UserResponse>> changed =
+        userService.getAllUsers(pageable, null, version -> false);
+
+    // Then
+    assertThat(unchanged.isUnchanged()).isTrue();
+    assertThat(unchanged.version()).isEqualTo(head.encode());
+    assertThat(changed.body().getContent()).containsExactly(validUserResponse);
+    verify(userRepository, times(1)).findAllResponses(pageable);
+  }
 }